@@ -0,0 +1,42 @@
+import 'dart:isolate';
+import 'dart:typed_data';
+
+import 'package:archive/archive.dart';
+import 'package:ride_shared/protocol.dart';
+
+/// An assets archive along with its files, for clients that sync per file.
+class ServerAssets {
+  final Uint8List archive;
+  final String version;
+  final AssetManifest manifest;
+
+  /// File contents by hash.
+  final Map<String, Uint8List> contents;
+
+  const ServerAssets._(
+    this.archive,
+    this.version,
+    this.manifest,
+    this.contents,
+  );
+
+  /// Unpacks and hashes [archive] on another isolate.
+  static Future<ServerAssets> decode(Uint8List archive) => Isolate.run(() {
+        final files = <String, AssetEntry>{};
+        final contents = <String, Uint8List>{};
+        for (final file in ZipDecoder().decodeBytes(archive, verify: true)) {
+          if (!file.isFile) continue;
+
+          final content = Uint8List.fromList(file.content as List<int>);
+          final hash = computeAssetHash(content);
+          files[file.name] = AssetEntry(hash, content.length);
+          contents[hash] = content;
+        }
+        return ServerAssets._(
+          archive,
+          computeAssetsVersion(archive),
+          AssetManifest(files),
+          contents,
+        );
+      });
+}
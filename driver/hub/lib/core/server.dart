@@ -10,6 +10,7 @@ import 'package:ride_shared/protocol.dart';
 import 'package:uri_to_file/uri_to_file.dart';
 
 import '../widgets/overlay.dart';
+import 'assets.dart';
 import 'config.dart';
 import 'tesla.dart' as tesla;
 
@@ -309,6 +310,29 @@ class ServerConnectionInfo {
   String id;
   String? foregroundPackage;
   bool? screenOn;
+  final connectedAt = DateTime.now();
+
+  /// What the client last reported having, or null if it only supports whole
+  /// archive pushes.
+  AssetInventory? assetInventory;
+
+  /// Incremented on each push so that a superseded per-file push stops.
+  int assetPushGeneration = 0;
+
+  Completer<void>? _outputResumed;
+
+  /// Completes once the socket has caught up with what has been sent, so that
+  /// bulk transfers don't queue up in memory faster than the network drains.
+  Future<void> get writable => _outputResumed?.future ?? Future.value();
+
+  void _onOutputPaused() {
+    _outputResumed ??= Completer();
+  }
+
+  void _onOutputResumed() {
+    _outputResumed?.complete();
+    _outputResumed = null;
+  }
 
   ServerConnectionInfo({
     required this.hasAssets,
@@ -456,14 +480,31 @@ class Server extends ChangeNotifier {
       (socket) async {
         socket.setOption(SocketOption.tcpNoDelay, true);
 
-        // ignore: close_sinks
-        final sink = encoder.startChunkedConversion(socket);
-        connections[sink] = ServerConnectionInfo(
+        final info = ServerConnectionInfo(
           hasAssets: false,
           id: socket.remoteAddress.address,
         );
+        // Output goes through a stream bound to the socket, which pauses it
+        // while the socket is backed up. That is reported as
+        // [ServerConnectionInfo.writable].
+        // ignore: close_sinks
+        final output = StreamController<List<int>>(
+          onPause: info._onOutputPaused,
+          onResume: info._onOutputResumed,
+          onCancel: info._onOutputResumed,
+        );
+        unawaited(socket
+            .addStream(output.stream)
+            .then((_) => socket.close(), onError: onError));
+        // ignore: close_sinks
+        final sink = encoder.startChunkedConversion(output);
+        connections[sink] = info;
         notifyListeners();
-        _maybeUpdatePolling();
+        // Clients report their screen state on connect, which will update
+        // polling. Only fall back to assuming it's on if they don't.
+        Timer(screenStateGracePeriod, () {
+          if (connections.containsKey(sink)) _maybeUpdatePolling();
+        });
 
         // Listen for incoming messages from the client
         socket.transform(decoder).listen(
@@ -488,9 +529,13 @@ class Server extends ChangeNotifier {
     dispose();
   }
 
+  static const screenStateGracePeriod = Duration(seconds: 2);
+
   /// Query whether any client has its screen on. If the screen-on state is
-  /// unknown, assume it's on to be safe.
-  bool get hasActiveClient => connections.values.any((c) => c.screenOn ?? true);
+  /// still unknown after [screenStateGracePeriod], assume it's on to be safe.
+  bool get hasActiveClient => connections.values.any((c) =>
+      c.screenOn ??
+      DateTime.now().difference(c.connectedAt) >= screenStateGracePeriod);
 
   void _maybeUpdatePolling() {
     if (hasActiveClient) {
@@ -510,13 +555,28 @@ class Server extends ChangeNotifier {
         case ['id', final String value]:
           connections[connection]!.id = value;
           notifyListeners();
-        case ['assets', final String? assetsVersion]:
+        // Clients that sent an inventory follow it with this for older hubs.
+        case ['assets', final String? assetsVersion]
+            when connections[connection]!.assetInventory == null:
           if (assetsVersion == config.assetsVersion) {
             connections[connection]!.hasAssets = true;
             notifyListeners();
           } else {
             await pushAssets(connection);
           }
+        case [
+            'assetInventory',
+            final String? assetsVersion,
+            final Map inventory,
+          ]:
+          final connectionInfo = connections[connection]!
+            ..assetInventory = AssetInventory.fromMessage(inventory);
+          if (assetsVersion == config.assetsVersion) {
+            connectionInfo.hasAssets = true;
+            notifyListeners();
+          } else {
+            await pushAssets(connection);
+          }
         case ['window', final String foregroundPackage]:
           connections[connection]!.foregroundPackage = foregroundPackage;
           notifyListeners();
@@ -571,7 +631,11 @@ class Server extends ChangeNotifier {
     }
   }
 
-  Future<Uint8List>? assetsFetch;
+  Future<ServerAssets>? assetsFetch;
+
+  /// The last fetched assets, kept so that refetching an unchanged archive
+  /// doesn't unpack it again.
+  ServerAssets? _assets;
 
   Future<void> pushAssets([Sink<Message>? connection]) async {
     lastErrors.assets = null;
@@ -584,8 +648,12 @@ class Server extends ChangeNotifier {
       if (config.assets != null) {
         assetsFetch ??= () async {
           try {
-            final assets = await fetchResource(config.assets!);
-            config.assetsVersion = computeAssetsVersion(assets);
+            final archive = await fetchResource(config.assets!);
+            final version = computeAssetsVersion(archive);
+            final assets = _assets = _assets?.version == version
+                ? _assets!
+                : await ServerAssets.decode(archive);
+            config.assetsVersion = version;
             return assets;
           } finally {
             assetsFetch = null;
@@ -602,8 +670,16 @@ class Server extends ChangeNotifier {
           // This will be set to true when the remote device acknowledges the
           // latest assets version.
           connectionInfo.hasAssets = false;
+          final generation = ++connectionInfo.assetPushGeneration;
 
-          connection.add(['assets', assets]);
+          final inventory = connectionInfo.assetInventory;
+          if (inventory == null) {
+            connection.add(['assets', assets.archive]);
+          } else {
+            unawaited(
+              pushAssetFiles(connection, assets, inventory, generation),
+            );
+          }
         }
 
         notifyListeners();
@@ -614,6 +690,37 @@ class Server extends ChangeNotifier {
     }
   }
 
+  /// Sends the manifest followed by the files the client is missing, in
+  /// chunks, until done or superseded by another push to the same client.
+  Future<void> pushAssetFiles(
+    Sink<Message> connection,
+    ServerAssets assets,
+    AssetInventory inventory,
+    int generation,
+  ) async {
+    connection.add([
+      'assetManifest',
+      assets.version,
+      assets.manifest.toMessage(),
+    ]);
+
+    for (final hash in inventory.missing(assets.manifest)) {
+      for (final (offset, chunk) in assetChunks(
+        assets.contents[hash]!,
+        inventory.partial[hash] ?? 0,
+      )) {
+        if (connections[connection]?.assetPushGeneration != generation) {
+          return;
+        }
+        connection.add(['assetChunk', hash, offset, chunk]);
+        // Let other messages through between chunks, and don't get ahead of
+        // the socket.
+        await Future<void>.delayed(Duration.zero);
+        await connections[connection]?.writable;
+      }
+    }
+  }
+
   List<Sink<Message>> findConnections(Set<String> ids) => [
         for (final MapEntry(key: connection, value: ServerConnectionInfo(:id))
             in connections.entries)
@@ -4,96 +4,501 @@ import static android.view.WindowManager.LayoutParams.*;
 
 import android.accessibilityservice.AccessibilityService;
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.Intent;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
 import android.graphics.PixelFormat;
+import android.graphics.drawable.BitmapDrawable;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.provider.Settings;
 import android.util.Log;
+import android.view.Display;
 import android.view.View;
 import android.view.WindowManager;
 import android.view.WindowManager.LayoutParams;
+import android.view.animation.Interpolator;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.Set;
 
 import io.flutter.FlutterInjector;
 import io.flutter.embedding.android.FlutterActivity;
 import io.flutter.embedding.android.FlutterSurfaceView;
+import io.flutter.embedding.android.FlutterTextureView;
 import io.flutter.embedding.android.FlutterView;
 import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.FlutterEngineGroup;
 import io.flutter.embedding.engine.dart.DartExecutor;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.embedding.engine.renderer.FlutterRenderer;
+import io.flutter.embedding.engine.renderer.FlutterUiDisplayListener;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
 import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
 import io.flutter.embedding.engine.plugins.lifecycle.FlutterLifecycleAdapter;
 import io.flutter.embedding.engine.plugins.service.ServiceAware;
 import io.flutter.embedding.engine.plugins.service.ServicePluginBinding;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugin.common.EventChannel.EventSink;
+import io.flutter.plugin.common.EventChannel.StreamHandler;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
 import io.flutter.plugin.common.MethodChannel.Result;
 import io.flutter.plugin.common.PluginRegistry;
+import io.flutter.plugin.common.StandardMethodCodec;
 
 /**
  * OverlayWindowPlugin
  */
-public class OverlayWindowPlugin implements FlutterPlugin, MethodCallHandler, ServiceAware, ActivityAware, PluginRegistry.ActivityResultListener {
+public class OverlayWindowPlugin implements FlutterPlugin, MethodCallHandler, StreamHandler, ServiceAware, ActivityAware, PluginRegistry.ActivityResultListener {
   private static final int
       REQUEST_CODE_ENABLE_OVERLAYS = 0x20;
 
+  private static final long DEFAULT_METRICS_INTERVAL_MS = 5000;
+
+  /**
+   * How long calls are held waiting for elevation before they fail.
+   */
+  private static final long ELEVATION_TIMEOUT_MS = 10000;
+  /**
+   * How many calls each plugin will hold while waiting for elevation before rejecting new ones.
+   */
+  private static final int MAX_PENDING_CALLS = 64;
+  /**
+   * How long a window created with {@code waitForFirstFrame} has to render before it is destroyed
+   * and its create call fails.
+   */
+  private static final long FIRST_FRAME_TIMEOUT_MS = 10000;
+
+  private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
   /**
-   * Set this to elevate overlay windows to accessibility overlays, which are necessary to receive
-   * touch events over some navigation bars.
+   * The accessibility service overlay windows are elevated with, if any. Accessibility overlays are
+   * necessary to receive touch events over some navigation bars.
    */
-  public static Future<AccessibilityService> accessibilityService;
+  private static AccessibilityService accessibilityService;
+  private static boolean isElevationPending, isElevationTimeoutScheduled;
+  /**
+   * Attached plugins, each of which has its own queue of calls held for elevation.
+   */
+  private static final Set<OverlayWindowPlugin> plugins = new HashSet<>();
+
+  private static final Runnable elevationTimeout = () -> {
+    isElevationTimeoutScheduled = false;
+    Log.e("OverlayWindowPlugin", "Timed out waiting for accessibility elevation.");
+    isElevationPending = false;
+    for (final OverlayWindowPlugin plugin : plugins) {
+      plugin.failPendingCalls("timeout", "Timed out waiting for accessibility elevation.");
+    }
+  };
+
+  /**
+   * Observes overlay window milestones, for example for startup tracing. Called on the main thread.
+   */
+  public interface Observer {
+    /**
+     * Called when {@link #elevate} takes effect.
+     */
+    void onElevated(boolean isAccessibilityOverlay);
+
+    void onWindowFirstFrame(int handle);
+  }
+
+  @Nullable
+  private static Observer observer;
+
+  /**
+   * Must be called on the main thread.
+   */
+  public static void setObserver(@Nullable Observer observer) {
+    OverlayWindowPlugin.observer = observer;
+  }
+
+  /**
+   * Holds overlay window calls until {@link #elevate} is called, so that windows are created with
+   * the right window type. Call this before any overlay windows are created. Must be called on the
+   * main thread.
+   */
+  public static void expectElevation() {
+    isElevationPending = true;
+  }
+
+  /**
+   * Elevates overlay windows to accessibility overlays using the given service, or falls back to
+   * regular overlays if {@code service} is null, and runs any calls held for elevation. May be
+   * called from any thread.
+   */
+  public static void elevate(@Nullable AccessibilityService service) {
+    mainHandler.post(() -> {
+      accessibilityService = service;
+      isElevationPending = false;
+      isElevationTimeoutScheduled = false;
+      mainHandler.removeCallbacks(elevationTimeout);
+      if (observer != null) {
+        observer.onElevated(service != null);
+      }
+      for (final OverlayWindowPlugin plugin : new ArrayList<>(plugins)) {
+        plugin.runPendingCalls();
+      }
+    });
+  }
+
+  private static class PendingCall {
+    final Runnable task;
+    final Result result;
+
+    PendingCall(Runnable task, Result result) {
+      this.task = task;
+      this.result = result;
+    }
+  }
+
+  /**
+   * Adapts a binary message reply to a {@link Result}, replying with a standard method codec
+   * envelope.
+   */
+  private static class EnvelopeReply implements Result {
+    private final BinaryMessenger.BinaryReply reply;
+
+    EnvelopeReply(BinaryMessenger.BinaryReply reply) {
+      this.reply = reply;
+    }
+
+    @Override
+    public void success(@Nullable Object result) {
+      reply.reply(StandardMethodCodec.INSTANCE.encodeSuccessEnvelope(result));
+    }
+
+    @Override
+    public void error(@NonNull String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails) {
+      reply.reply(StandardMethodCodec.INSTANCE.encodeErrorEnvelope(errorCode, errorMessage, errorDetails));
+    }
+
+    @Override
+    public void notImplemented() {
+      reply.reply(null);
+    }
+  }
 
   private static class Window {
     final OverlayWindowPlugin bindings;
     final FlutterView view;
     final FlutterEngine engine;
+    final WindowMetrics metrics;
+    WindowAnimator animator;
+    /**
+     * The createWindow result, if it is waiting for the first frame.
+     */
+    Result pendingCreateResult;
+    /**
+     * Fails {@link #pendingCreateResult} if the first frame takes too long.
+     */
+    Runnable firstFrameTimeout;
+    boolean isSurfaceReleased;
+    Bitmap snapshot;
 
-    public Window(OverlayWindowPlugin bindings, FlutterView view, FlutterEngine engine) {
+    public Window(OverlayWindowPlugin bindings, FlutterView view, FlutterEngine engine, WindowMetrics metrics) {
       this.bindings = bindings;
       this.view = view;
       this.engine = engine;
+      this.metrics = metrics;
+    }
+
+    /**
+     * The time available to build or raster a frame at the display's refresh rate.
+     */
+    long frameBudgetMicros() {
+      final Display display = view.getDisplay();
+      final float refreshRate = display == null ? 60 : display.getRefreshRate();
+      return (long) (1000000 / refreshRate);
+    }
+
+    void cancelFirstFrameTimeout() {
+      if (firstFrameTimeout != null) {
+        mainHandler.removeCallbacks(firstFrameTimeout);
+        firstFrameTimeout = null;
+      }
+    }
+
+    /**
+     * Completes {@link #pendingCreateResult}, if any, with an error.
+     */
+    void failPendingCreate(String errorCode, String errorMessage) {
+      if (pendingCreateResult != null) {
+        cancelFirstFrameTimeout();
+        pendingCreateResult.error(errorCode, errorMessage, null);
+        pendingCreateResult = null;
+      }
+    }
+
+    /**
+     * Stops any running animation so that it doesn't overwrite explicit updates.
+     */
+    void cancelAnimation() {
+      if (animator != null) {
+        animator.cancel();
+        animator = null;
+      }
     }
   }
 
-  private static void applyParams(LayoutParams params, List<Number> serializedParams) {
-    if (serializedParams.get(0) != null) {
-      params.flags = serializedParams.get(0).intValue();
+  /**
+   * Overlay engines are spawned from a shared group so that they share the isolate group, assets
+   * and caches of the first one rather than each booting from scratch.
+   */
+  private static FlutterEngineGroup engineGroup;
+  /**
+   * Idle engines that have already booted {@code overlayPooledMain} and are waiting to be assigned
+   * a window entrypoint.
+   */
+  private static final ArrayDeque<FlutterEngine> enginePool = new ArrayDeque<>();
+  private static int enginePoolSize;
+  private static boolean isEnginePoolRefillScheduled;
+
+  private static final String ENGINE_CHANNEL = "overlay_window.engine";
+  /**
+   * Binary channel for high-frequency layout updates, which avoids boxing and codec overhead.
+   */
+  private static final String PARAMS_CHANNEL = "overlay_window.params";
+
+  private static DartExecutor.DartEntrypoint overlayEntrypoint(String name) {
+    return new DartExecutor.DartEntrypoint(
+        FlutterInjector.instance().flutterLoader().findAppBundlePath(),
+        "package:overlay_window/overlay_window_method_channel.dart",
+        name);
+  }
+
+  private static FlutterEngine spawnEngine(Context context, String entrypoint, List<String> args) {
+    if (engineGroup == null) {
+      engineGroup = new FlutterEngineGroup(context.getApplicationContext());
+    }
+    return engineGroup.createAndRunEngine(
+        new FlutterEngineGroup.Options(context)
+            .setDartEntrypoint(overlayEntrypoint(entrypoint))
+            .setDartEntrypointArgs(args));
+  }
+
+  /**
+   * Takes a pre-warmed engine from the pool and starts the given entrypoint on it, or spawns a new
+   * engine if the pool is empty.
+   */
+  private static FlutterEngine obtainEngine(Context context, long entrypoint, int handle) {
+    final List<String> args = Arrays.asList(Long.toString(entrypoint), Integer.toString(handle));
+    final FlutterEngine engine = enginePool.poll();
+    if (engine == null) {
+      return spawnEngine(context, "overlayMain", args);
+    }
+
+    new MethodChannel(engine.getDartExecutor().getBinaryMessenger(), ENGINE_CHANNEL)
+        .invokeMethod("start", args);
+    scheduleEnginePoolRefill(context);
+    return engine;
+  }
+
+  /**
+   * Refills the engine pool one engine at a time while the main looper is idle so that pool
+   * maintenance doesn't compete with window creation or animations.
+   */
+  private static void scheduleEnginePoolRefill(Context context) {
+    if (isEnginePoolRefillScheduled || enginePool.size() >= enginePoolSize) {
+      return;
+    }
+    isEnginePoolRefillScheduled = true;
+
+    final Context applicationContext = context.getApplicationContext();
+    Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+      @Override
+      public boolean queueIdle() {
+        if (enginePool.size() >= enginePoolSize) {
+          isEnginePoolRefillScheduled = false;
+          return false;
+        }
+        enginePool.add(spawnEngine(applicationContext, "overlayPooledMain", null));
+        if (enginePool.size() >= enginePoolSize) {
+          isEnginePoolRefillScheduled = false;
+          return false;
+        }
+        return true;
+      }
+    });
+  }
+
+  private static void setEnginePoolSize(Context context, int size) {
+    enginePoolSize = size;
+    while (enginePool.size() > enginePoolSize) {
+      enginePool.removeLast().destroy();
+    }
+    scheduleEnginePoolRefill(context);
+  }
+
+  /**
+   * Hide modes, matching the Dart {@code HideMode} enum.
+   */
+  private static final int
+      HIDE_MODE_RETAIN = 0,
+      HIDE_MODE_RELEASE = 1,
+      HIDE_MODE_RELEASE_WITH_SNAPSHOT = 2;
+
+  /**
+   * Render modes, matching the Dart {@code RenderMode} enum.
+   */
+  private static final int
+      RENDER_MODE_TRANSLUCENT_SURFACE = 0,
+      RENDER_MODE_OPAQUE_SURFACE = 1,
+      RENDER_MODE_TRANSLUCENT_TEXTURE = 2,
+      RENDER_MODE_OPAQUE_TEXTURE = 3;
+
+  private static boolean isOpaque(int renderMode) {
+    return renderMode == RENDER_MODE_OPAQUE_SURFACE || renderMode == RENDER_MODE_OPAQUE_TEXTURE;
+  }
+
+  private static FlutterView createView(Context context, int renderMode) {
+    switch (renderMode) {
+      case RENDER_MODE_TRANSLUCENT_SURFACE:
+        return new FlutterView(context, new FlutterSurfaceView(context, true));
+      case RENDER_MODE_OPAQUE_SURFACE:
+        return new FlutterView(context, new FlutterSurfaceView(context, false));
+      case RENDER_MODE_TRANSLUCENT_TEXTURE:
+        return new FlutterView(context, new FlutterTextureView(context));
+      case RENDER_MODE_OPAQUE_TEXTURE: {
+        // Rendering into the window's own opaque surface leaves the compositor a single opaque
+        // layer, which hardware composers can usually scan out without blending.
+        final FlutterTextureView textureView = new FlutterTextureView(context);
+        textureView.setOpaque(true);
+        return new FlutterView(context, textureView);
+      }
+      default:
+        throw new IllegalArgumentException("Unknown render mode " + renderMode);
     }
-    if (serializedParams.get(1) != null) {
-      params.gravity = serializedParams.get(1).intValue();
+  }
+
+  private static void setVisibility(Window window, int visibility, int hideMode) {
+    final int oldVisibility = window.view.getVisibility();
+
+    if (oldVisibility == View.VISIBLE && visibility != View.VISIBLE) {
+      if (hideMode == HIDE_MODE_RELEASE_WITH_SNAPSHOT) {
+        // The snapshot has to be taken while the surface is still showing.
+        window.snapshot = window.engine.getRenderer().getBitmap();
+      }
+      window.engine.getLifecycleChannel().appIsPaused();
     }
-    if (serializedParams.get(2) != null) {
-      params.x = serializedParams.get(2).intValue();
+    window.view.setVisibility(visibility);
+    if (visibility != View.VISIBLE && hideMode != HIDE_MODE_RETAIN) {
+      releaseSurface(window);
     }
-    if (serializedParams.get(3) != null) {
-      params.y = serializedParams.get(3).intValue();
+    if (oldVisibility != View.VISIBLE && visibility == View.VISIBLE) {
+      restoreSurface(window);
+      window.engine.getLifecycleChannel().appIsResumed();
     }
-    if (serializedParams.get(4) != null) {
-      params.width = serializedParams.get(4).intValue();
+  }
+
+  /**
+   * Detaches a hidden window's view from its engine, which frees the render surface, and asks the
+   * engine to drop its caches. The engine stays paused until the window is shown again.
+   */
+  private static void releaseSurface(Window window) {
+    if (window.isSurfaceReleased) {
+      return;
     }
-    if (serializedParams.get(5) != null) {
-      params.height = serializedParams.get(5).intValue();
+    window.view.detachFromFlutterEngine();
+    window.engine.getSystemChannel().sendMemoryPressureWarning();
+    window.isSurfaceReleased = true;
+  }
+
+  /**
+   * Reattaches a released window to its engine. If a snapshot was taken, it is shown behind the
+   * surface until the engine renders its first frame.
+   */
+  private static void restoreSurface(Window window) {
+    if (!window.isSurfaceReleased) {
+      return;
+    }
+
+    if (window.snapshot != null) {
+      final Bitmap snapshot = window.snapshot;
+      window.snapshot = null;
+      window.view.setBackground(new BitmapDrawable(window.view.getResources(), snapshot));
+
+      final FlutterRenderer renderer = window.engine.getRenderer();
+      renderer.addIsDisplayingFlutterUiListener(new FlutterUiDisplayListener() {
+        @Override
+        public void onFlutterUiDisplayed() {
+          renderer.removeIsDisplayingFlutterUiListener(this);
+          window.view.setBackground(null);
+          snapshot.recycle();
+        }
+
+        @Override
+        public void onFlutterUiNoLongerDisplayed() {
+        }
+      });
     }
-    if (serializedParams.get(6) != null) {
-      params.alpha = serializedParams.get(6).floatValue();
+
+    window.view.attachToFlutterEngine(window.engine);
+    window.isSurfaceReleased = false;
+  }
+
+  private static void dropSnapshot(Window window) {
+    if (window.snapshot != null) {
+      window.snapshot.recycle();
+      window.snapshot = null;
     }
   }
 
+  /**
+   * Releases the surfaces of hidden windows when memory is tight.
+   */
+  private static final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+    @Override
+    public void onTrimMemory(int level) {
+      if (level < TRIM_MEMORY_RUNNING_LOW) {
+        return;
+      }
+      final boolean isCritical = level == TRIM_MEMORY_RUNNING_CRITICAL || level >= TRIM_MEMORY_BACKGROUND;
+      for (final Window window : windows.values()) {
+        if (window.view.getVisibility() != View.VISIBLE) {
+          releaseSurface(window);
+          if (isCritical) {
+            dropSnapshot(window);
+          }
+        }
+      }
+    }
+
+    @Override
+    public void onLowMemory() {
+      onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+  };
+
   private MethodChannel channel;
+  private BinaryMessenger binaryMessenger;
+  private EventChannel metricsChannel;
+  private Runnable metricsReporter;
   private Context context;
   private ServicePluginBinding serviceBinding;
   private ActivityPluginBinding activityBinding;
@@ -101,6 +506,7 @@ public class OverlayWindowPlugin implements FlutterPlugin, MethodCallHandler, Se
   private WindowManager windowManager;
 
   private static int nextHandle;
+  private static final ArrayDeque<Window> pendingTeardowns = new ArrayDeque<>();
   private static final Map<Integer, Window> windows = new HashMap<>();
 
   private Result activityResult;
@@ -109,175 +515,455 @@ public class OverlayWindowPlugin implements FlutterPlugin, MethodCallHandler, Se
   public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
     channel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), "overlay_window");
     channel.setMethodCallHandler(this);
+    binaryMessenger = flutterPluginBinding.getBinaryMessenger();
+    binaryMessenger.setMessageHandler(PARAMS_CHANNEL, this::onParamsMessage);
+    metricsChannel = new EventChannel(binaryMessenger, "overlay_window.metrics");
+    metricsChannel.setStreamHandler(this);
 
     context = flutterPluginBinding.getApplicationContext();
 
-    windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+    if (plugins.isEmpty()) {
+      context.registerComponentCallbacks(memoryCallbacks);
+    }
+    plugins.add(this);
   }
 
-  private List<Runnable> taskQueue;
+  /**
+   * Calls held while elevation is pending. Like all other plugin state, this is confined to the
+   * main thread.
+   */
+  private final ArrayDeque<PendingCall> pendingCalls = new ArrayDeque<>();
 
   @Override
   public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
-    synchronized (windows) {
-      if (accessibilityService != null) {
-        if (accessibilityService.isDone()) {
-          try {
-            windowManager = (WindowManager) accessibilityService.get().getSystemService(Context.WINDOW_SERVICE);
-          } catch (Exception e) {
-            Log.e("OverlayWindowPlugin", "Failed to elevate to accessibility service.", e);
-            accessibilityService = null;
+    dispatch(() -> handleMethodCall(call, result), result);
+  }
+
+  /**
+   * Handles {@link #PARAMS_CHANNEL} messages, which are fixed-layout little-endian records of
+   * {@code int32 handle} followed by a {@link ParamsUpdate#fromBuffer} record.
+   */
+  private void onParamsMessage(@Nullable ByteBuffer message, @NonNull BinaryMessenger.BinaryReply reply) {
+    final Result result = new EnvelopeReply(reply);
+    if (message == null || message.remaining() < ParamsUpdate.RECORD_SIZE + 4) {
+      result.error("Argument exception", "Malformed window params record.", null);
+      return;
+    }
+
+    message.order(ByteOrder.LITTLE_ENDIAN);
+    final int handle = message.getInt();
+    // The message buffer is only valid during this call, so decode it before dispatching.
+    final ParamsUpdate update = ParamsUpdate.fromBuffer(message);
+    dispatch(() -> updateWindow(handle, update, result), result);
+  }
+
+  private void dispatch(Runnable task, Result result) {
+    if (!isElevationPending && pendingCalls.isEmpty()) {
+      task.run();
+      return;
+    }
+
+    if (pendingCalls.size() >= MAX_PENDING_CALLS) {
+      result.error("busy", "Too many calls waiting for accessibility elevation.", null);
+      return;
+    }
+    if (isElevationPending && !isElevationTimeoutScheduled) {
+      isElevationTimeoutScheduled = true;
+      mainHandler.postDelayed(elevationTimeout, ELEVATION_TIMEOUT_MS);
+    }
+    pendingCalls.add(new PendingCall(task, result));
+  }
+
+  private void runPendingCalls() {
+    while (!isElevationPending && !pendingCalls.isEmpty()) {
+      pendingCalls.remove().task.run();
+    }
+  }
+
+  private void failPendingCalls(String errorCode, String errorMessage) {
+    while (!pendingCalls.isEmpty()) {
+      pendingCalls.remove().result.error(errorCode, errorMessage, null);
+    }
+  }
+
+  private void updateWindowManager() {
+    windowManager = (WindowManager) (accessibilityService == null ? context : accessibilityService)
+        .getSystemService(Context.WINDOW_SERVICE);
+  }
+
+  private void updateWindow(int handle, ParamsUpdate update, Result result) {
+    updateWindowManager();
+
+    final Window window = windows.get(handle);
+    if (window == null) {
+      result.error("Argument exception", "No window for handle " + handle, null);
+      return;
+    }
+
+    window.cancelAnimation();
+    final LayoutParams params = (LayoutParams) window.view.getLayoutParams();
+    update.applyTo(params);
+    windowManager.updateViewLayout(window.view, params);
+
+    result.success(null);
+  }
+
+  private void handleMethodCall(@NonNull MethodCall call, @NonNull Result result) {
+    updateWindowManager();
+
+    switch (call.method) {
+      case "requestPermissions":
+        if (Build.VERSION.SDK_INT >= 23) {
+          if (activityBinding == null) {
+            result.error("failed", "Result callback requires an activity.", null);
+            return;
           }
-        } else {
-          if (taskQueue == null) {
-            taskQueue = new ArrayList<>();
-            new Thread(() -> {
-              try {
-                accessibilityService.get();
-                synchronized (windows) {
-                  if (taskQueue != null) {
-                    for (final Runnable task : taskQueue) {
-                      task.run();
-                    }
-                  }
-                  taskQueue = null;
-                }
-              } catch (ExecutionException | InterruptedException _) {
-              }
-            }).start();
+
+          if (activityResult != null) {
+            throw new IllegalStateException("Unexpected uncompleted activity result.");
           }
-          taskQueue.add(() -> onMethodCall(call, result));
-          return;
+          activityResult = result;
+
+          if (!Settings.canDrawOverlays(context)) {
+            final Intent intent = new Intent(Settings.ACTION_MANAGE_OVERLAY_PERMISSION,
+                Uri.parse("package:" + context.getPackageName()));
+            activityBinding.getActivity().startActivityForResult(intent, REQUEST_CODE_ENABLE_OVERLAYS);
+          }
+        } else {
+          result.success(true);
         }
-      }
+        break;
+      case "hasPermissions":
+        result.success(Build.VERSION.SDK_INT < 23 || Settings.canDrawOverlays(context));
+        break;
+      case "createWindow": {
+        // [entrypoint, ...params, renderMode, waitForFirstFrame]
+        final WindowMetrics metrics = new WindowMetrics();
+        final List<Object> arguments = call.arguments();
+        final long entrypoint = ((Number) arguments.get(0)).longValue();
+        final int renderMode = (Integer) arguments.get(8);
+        final boolean waitForFirstFrame = (Boolean) arguments.get(9);
+        final LayoutParams params = new LayoutParams(
+            accessibilityService != null && Build.VERSION.SDK_INT >= 22 ?
+                TYPE_ACCESSIBILITY_OVERLAY :
+                Build.VERSION.SDK_INT >= 26 ? TYPE_APPLICATION_OVERLAY : TYPE_SYSTEM_ALERT,
+            FLAG_NOT_FOCUSABLE | FLAG_NOT_TOUCH_MODAL,
+            isOpaque(renderMode) ? PixelFormat.OPAQUE : PixelFormat.TRANSLUCENT
+        );
+        @SuppressWarnings("unchecked")
+        final List<Number> serializedParams = (List<Number>) (List<?>) arguments.subList(1, 8);
+        ParamsUpdate.fromList(serializedParams).applyTo(params);
+
+        // The field is cleared if the plugin detaches before the first frame.
+        final WindowManager windowManager = this.windowManager;
+        final int handle = nextHandle++;
+        final Window window = new Window(
+            this,
+            createView(context, renderMode),
+            obtainEngine(context, entrypoint, handle),
+            metrics);
+        windows.put(handle, window);
 
-      switch (call.method) {
-        case "requestPermissions":
-          if (Build.VERSION.SDK_INT >= 23) {
-            if (activityBinding == null) {
-              result.error("failed", "Result callback requires an activity.", null);
-              return;
+        // Until the first frame, the window is added invisible and untouchable rather than hidden
+        // so that its surface is still created and rendered to.
+        final float alpha = params.alpha;
+        final int flags = params.flags;
+        if (waitForFirstFrame) {
+          window.pendingCreateResult = result;
+          params.alpha = 0;
+          params.flags |= FLAG_NOT_TOUCHABLE;
+
+          // Nothing else would complete the result if the entrypoint fails before rendering.
+          window.firstFrameTimeout = () -> {
+            window.firstFrameTimeout = null;
+            if (windows.remove(handle) == window) {
+              Log.e("OverlayWindowPlugin", "Timed out waiting for the first frame of window " + handle + ".");
+              window.failPendingCreate("timeout", "Timed out waiting for the first frame.");
+              destroyWindow(window);
             }
+          };
+          mainHandler.postDelayed(window.firstFrameTimeout, FIRST_FRAME_TIMEOUT_MS);
+        }
 
-            if (activityResult != null) {
-              throw new IllegalStateException("Unexpected uncompleted activity result.");
+        final FlutterRenderer renderer = window.engine.getRenderer();
+        renderer.addIsDisplayingFlutterUiListener(new FlutterUiDisplayListener() {
+          @Override
+          public void onFlutterUiDisplayed() {
+            renderer.removeIsDisplayingFlutterUiListener(this);
+            metrics.onFirstFrame();
+            if (observer != null) {
+              observer.onWindowFirstFrame(handle);
             }
-            activityResult = result;
 
-            if (!Settings.canDrawOverlays(context)) {
-              final Intent intent = new Intent(Settings.ACTION_MANAGE_OVERLAY_PERMISSION,
-                  Uri.parse("package:" + context.getPackageName()));
-              activityBinding.getActivity().startActivityForResult(intent, REQUEST_CODE_ENABLE_OVERLAYS);
+            if (window.pendingCreateResult != null) {
+              window.cancelFirstFrameTimeout();
+
+              final LayoutParams params = (LayoutParams) window.view.getLayoutParams();
+              params.alpha = alpha;
+              params.flags = flags;
+              windowManager.updateViewLayout(window.view, params);
+
+              window.pendingCreateResult.success(handle);
+              window.pendingCreateResult = null;
             }
-          } else {
-            result.success(true);
-          }
-          break;
-        case "hasPermissions":
-          result.success(Build.VERSION.SDK_INT < 23 || Settings.canDrawOverlays(context));
-          break;
-        case "createWindow": {
-          final List<Number> arguments = call.arguments();
-          final long entrypoint = arguments.get(0).longValue();
-          final LayoutParams params = new LayoutParams(
-              accessibilityService != null && Build.VERSION.SDK_INT >= 22 ?
-                  TYPE_ACCESSIBILITY_OVERLAY :
-                  Build.VERSION.SDK_INT >= 26 ? TYPE_APPLICATION_OVERLAY : TYPE_SYSTEM_ALERT,
-              FLAG_NOT_FOCUSABLE | FLAG_NOT_TOUCH_MODAL,
-              PixelFormat.TRANSLUCENT
-          );
-          applyParams(params, arguments.subList(1, 8));
-
-          final Window window = new Window(
-              this,
-              new FlutterView(context, new FlutterSurfaceView(context, true)),
-              new FlutterEngine(context));
-
-          final int handle = nextHandle++;
-          windows.put(handle, window);
-
-          window.engine.getDartExecutor().executeDartEntrypoint(
-              new DartExecutor.DartEntrypoint(
-                  FlutterInjector.instance().flutterLoader().findAppBundlePath(),
-                  "package:overlay_window/overlay_window_method_channel.dart",
-                  "overlayMain"),
-              Arrays.asList(Long.toString(entrypoint), Integer.toString(handle)));
-
-          if (serviceBinding != null) {
-            attachToService(window.engine);
           }
-          if (activityBinding != null) {
-            attachToActivity(window.engine);
+
+          @Override
+          public void onFlutterUiNoLongerDisplayed() {
           }
+        });
+
+        if (serviceBinding != null) {
+          attachToService(window.engine);
+        }
+        if (activityBinding != null) {
+          attachToActivity(window.engine);
+        }
 
-          window.view.attachToFlutterEngine(window.engine);
-          windowManager.addView(window.view, params);
-          window.engine.getLifecycleChannel().appIsResumed();
+        window.view.attachToFlutterEngine(window.engine);
+        windowManager.addView(window.view, params);
+        window.engine.getLifecycleChannel().appIsResumed();
 
+        if (!waitForFirstFrame) {
           result.success(handle);
-          break;
         }
-        case "updateWindow": {
-          final List<Number> arguments = call.arguments();
-          final int handle = arguments.get(0).intValue();
-          final Window window = windows.get(handle);
+        // Otherwise, result will be completed on first frame.
+        break;
+      }
+      case "reportFrameTimings": {
+        // Sent from overlay engines as [handle, Int64List of alternating build and raster
+        // durations in microseconds], batched by the engine's timings reporting.
+        final List<Object> arguments = call.arguments();
+        final int handle = (Integer) arguments.get(0);
+        final Window window = windows.get(handle);
 
-          if (window == null) {
-            result.error("Argument exception", "No window for handle " + handle, null);
-            return;
-          }
+        if (window == null) {
+          result.error("Argument exception", "No window for handle " + handle, null);
+          return;
+        }
 
-          final LayoutParams params = (LayoutParams) window.view.getLayoutParams();
-          applyParams(params, arguments.subList(1, 8));
-          windowManager.updateViewLayout(window.view, params);
+        window.metrics.recordFrames((long[]) arguments.get(1), window.frameBudgetMicros());
+        result.success(null);
+        break;
+      }
+      case "setEnginePoolSize": {
+        final int size = call.arguments();
+        if (size < 0) {
+          result.error("Argument exception", "Engine pool size must be non-negative.", null);
+          return;
+        }
+        setEnginePoolSize(context, size);
+        result.success(null);
+        break;
+      }
+      case "updateWindow": {
+        final List<Number> arguments = call.arguments();
+        updateWindow(arguments.get(0).intValue(), ParamsUpdate.fromList(arguments.subList(1, 8)), result);
+        break;
+      }
+      case "animateWindow": {
+        final List<Object> arguments = call.arguments();
+        final int handle = (Integer) arguments.get(0);
+        final Window window = windows.get(handle);
 
-          result.success(null);
-          break;
+        if (window == null) {
+          result.error("Argument exception", "No window for handle " + handle, null);
+          return;
         }
-        case "setVisibility": {
-          final List<Integer> arguments = call.arguments();
-          final int handle = arguments.get(0);
-          final Window window = windows.get(handle);
-          final int visibility = arguments.get(1), oldVisibility = window.view.getVisibility();
-
-          if (oldVisibility == View.VISIBLE && visibility != View.VISIBLE) {
-            window.engine.getLifecycleChannel().appIsPaused();
-          }
-          window.view.setVisibility(arguments.get(1));
-          if (oldVisibility != View.VISIBLE && visibility == View.VISIBLE) {
-            window.engine.getLifecycleChannel().appIsResumed();
-          }
 
-          result.success(null);
-          break;
+        final Interpolator interpolator;
+        try {
+          interpolator = WindowAnimator.interpolatorForCurve((String) arguments.get(2));
+        } catch (IllegalArgumentException e) {
+          result.error("Argument exception", e.getMessage(), null);
+          return;
         }
-        case "destroyWindow": {
-          final int handle = call.arguments();
-          final Window window = windows.remove(handle);
 
-          if (window == null) {
+        @SuppressWarnings("unchecked")
+        final List<Number> serializedParams = (List<Number>) (List<?>) arguments.subList(3, 10);
+
+        window.cancelAnimation();
+        window.animator = new WindowAnimator(
+            windowManager,
+            window.view,
+            ParamsUpdate.fromList(serializedParams),
+            ((Number) arguments.get(1)).longValue(),
+            interpolator,
+            result);
+        window.animator.start();
+        // Result will be completed when the animation finishes or is cancelled.
+        break;
+      }
+      case "setVisibility": {
+        final List<Integer> arguments = call.arguments();
+        final int handle = arguments.get(0);
+        final Window window = windows.get(handle);
+
+        if (window == null) {
+          result.error("Argument exception", "No window for handle " + handle, null);
+          return;
+        }
+
+        setVisibility(window, arguments.get(1), arguments.get(2));
+
+        result.success(null);
+        break;
+      }
+      case "applyBatch": {
+        // Each entry is [handle, visibility, hideMode, ...params]. Entries for the same window
+        // are merged in order so that each window gets at most one layout pass per batch.
+        final List<List<Number>> arguments = call.arguments();
+        final Map<Integer, ParamsUpdate> paramsUpdates = new LinkedHashMap<>();
+        final Map<Integer, int[]> visibilityUpdates = new LinkedHashMap<>();
+
+        for (final List<Number> entry : arguments) {
+          final int handle = entry.get(0).intValue();
+          if (!windows.containsKey(handle)) {
             result.error("Argument exception", "No window for handle " + handle, null);
             return;
           }
 
-          windowManager.removeView(window.view);
-          window.engine.getLifecycleChannel().appIsDetached();
+          if (entry.get(1) != null) {
+            visibilityUpdates.put(handle, new int[]{entry.get(1).intValue(), entry.get(2).intValue()});
+          }
 
-          if (window.bindings.serviceBinding != null) {
-            window.engine.getServiceControlSurface().detachFromService();
+          final ParamsUpdate update = ParamsUpdate.fromList(entry.subList(3, 10));
+          final ParamsUpdate pending = paramsUpdates.get(handle);
+          if (pending == null) {
+            paramsUpdates.put(handle, update);
+          } else {
+            pending.merge(update);
           }
-          if (window.bindings.activityBinding != null) {
-            window.engine.getActivityControlSurface().detachFromActivity();
+        }
+
+        for (final Map.Entry<Integer, ParamsUpdate> entry : paramsUpdates.entrySet()) {
+          if (entry.getValue().isEmpty()) {
+            continue;
           }
+          final Window window = windows.get(entry.getKey());
+          window.cancelAnimation();
+          final LayoutParams params = (LayoutParams) window.view.getLayoutParams();
+          entry.getValue().applyTo(params);
+          windowManager.updateViewLayout(window.view, params);
+        }
+        for (final Map.Entry<Integer, int[]> entry : visibilityUpdates.entrySet()) {
+          setVisibility(windows.get(entry.getKey()), entry.getValue()[0], entry.getValue()[1]);
+        }
 
-          window.engine.destroy();
+        result.success(null);
+        break;
+      }
+      case "destroyWindow": {
+        final int handle = call.arguments();
+        final Window window = windows.remove(handle);
 
-          result.success(null);
-          break;
+        if (window == null) {
+          result.error("Argument exception", "No window for handle " + handle, null);
+          return;
         }
-        default:
-          result.notImplemented();
+
+        destroyWindow(window);
+        result.success(null);
+        break;
+      }
+      case "destroyAll": {
+        final Iterator<Window> it = windows.values().iterator();
+        while (it.hasNext()) {
+          final Window window = it.next();
+          if (window.bindings == this) {
+            it.remove();
+            destroyWindow(window);
+          }
+        }
+        result.success(null);
+        break;
+      }
+      default:
+        result.notImplemented();
+    }
+  }
+
+  /**
+   * Removes a window from the screen right away and defers tearing down its engine, which is the
+   * expensive part, to when the main looper is idle.
+   */
+  private void destroyWindow(Window window) {
+    window.cancelAnimation();
+    window.failPendingCreate("failed", "Window destroyed before its first frame.");
+    windowManager.removeView(window.view);
+
+    pendingTeardowns.add(window);
+    if (pendingTeardowns.size() == 1) {
+      Looper.myQueue().addIdleHandler(() -> {
+        tearDown(pendingTeardowns.remove());
+        // Tear down one engine per idle pass so that bulk destruction doesn't stall the looper.
+        return !pendingTeardowns.isEmpty();
+      });
+    }
+  }
+
+  private static void tearDown(Window window) {
+    window.engine.getLifecycleChannel().appIsDetached();
+
+    if (window.bindings.serviceBinding != null) {
+      window.engine.getServiceControlSurface().detachFromService();
+    }
+    if (window.bindings.activityBinding != null) {
+      window.engine.getActivityControlSurface().detachFromActivity();
+    }
+
+    if (!window.isSurfaceReleased) {
+      window.view.detachFromFlutterEngine();
+    }
+    dropSnapshot(window);
+    window.engine.destroy();
+  }
+
+  private static Map<String, Object> collectMetrics() {
+    final Map<Integer, Object> windowMetrics = new HashMap<>();
+    for (final Map.Entry<Integer, Window> entry : windows.entrySet()) {
+      final Window window = entry.getValue();
+      final Map<String, Object> metrics = window.metrics.toMap();
+      metrics.put("width", window.view.getWidth());
+      metrics.put("height", window.view.getHeight());
+      metrics.put("pixelFormat", ((LayoutParams) window.view.getLayoutParams()).format);
+      metrics.put("isSurfaceReleased", window.isSurfaceReleased);
+      windowMetrics.put(entry.getKey(), metrics);
+    }
+
+    final Map<String, Object> metrics = new HashMap<>();
+    metrics.put("windowCount", windows.size());
+    metrics.put("engineCount", windows.size() + enginePool.size());
+    metrics.put("bucketBounds", WindowMetrics.BUCKET_BOUNDS_MICROS);
+    metrics.put("windows", windowMetrics);
+    return metrics;
+  }
+
+  /**
+   * Emits a metrics snapshot immediately and then at the given interval, in milliseconds, for as
+   * long as the stream is listened to.
+   */
+  @Override
+  public void onListen(Object arguments, EventSink events) {
+    onCancel(null);
+
+    final long interval = arguments == null ?
+        DEFAULT_METRICS_INTERVAL_MS : ((Number) arguments).longValue();
+    metricsReporter = new Runnable() {
+      @Override
+      public void run() {
+        events.success(collectMetrics());
+        mainHandler.postDelayed(this, interval);
       }
+    };
+    metricsReporter.run();
+  }
+
+  @Override
+  public void onCancel(Object arguments) {
+    if (metricsReporter != null) {
+      mainHandler.removeCallbacks(metricsReporter);
+      metricsReporter = null;
     }
   }
 
@@ -305,11 +991,21 @@ public class OverlayWindowPlugin implements FlutterPlugin, MethodCallHandler, Se
 
   @Override
   public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
-    synchronized (windows) {
-      taskQueue = null;
+    plugins.remove(this);
+    if (plugins.isEmpty()) {
+      context.unregisterComponentCallbacks(memoryCallbacks);
+    }
+    failPendingCalls("failed", "Plugin detached.");
+    for (final Window window : windows.values()) {
+      if (window.bindings == this) {
+        window.failPendingCreate("failed", "Plugin detached.");
+      }
     }
     windowManager = null;
     channel.setMethodCallHandler(null);
+    binaryMessenger.setMessageHandler(PARAMS_CHANNEL, null);
+    metricsChannel.setStreamHandler(null);
+    onCancel(null);
   }
 
   private void attachToService(FlutterEngine engine) {
@@ -328,22 +1024,18 @@ public class OverlayWindowPlugin implements FlutterPlugin, MethodCallHandler, Se
   @Override
   public void onAttachedToService(@NonNull ServicePluginBinding binding) {
     serviceBinding = binding;
-    synchronized (windows) {
-      for (final Window window : windows.values()) {
-        if (window.bindings == this) {
-          attachToService(window.engine);
-        }
+    for (final Window window : windows.values()) {
+      if (window.bindings == this) {
+        attachToService(window.engine);
       }
     }
   }
 
   @Override
   public void onDetachedFromService() {
-    synchronized (windows) {
-      for (final Window window : windows.values()) {
-        if (window.bindings == this) {
-          window.engine.getServiceControlSurface().detachFromService();
-        }
+    for (final Window window : windows.values()) {
+      if (window.bindings == this) {
+        window.engine.getServiceControlSurface().detachFromService();
       }
     }
     serviceBinding = null;
@@ -352,11 +1044,9 @@ public class OverlayWindowPlugin implements FlutterPlugin, MethodCallHandler, Se
   @Override
   public void onAttachedToActivity(@NonNull ActivityPluginBinding binding) {
     activityBinding = binding;
-    synchronized (windows) {
-      for (final Window window : windows.values()) {
-        if (window.bindings == this) {
-          attachToActivity(window.engine);
-        }
+    for (final Window window : windows.values()) {
+      if (window.bindings == this) {
+        attachToActivity(window.engine);
       }
     }
     binding.addActivityResultListener(this);
@@ -364,11 +1054,9 @@ public class OverlayWindowPlugin implements FlutterPlugin, MethodCallHandler, Se
 
   @Override
   public void onDetachedFromActivityForConfigChanges() {
-    synchronized (windows) {
-      for (final Window window : windows.values()) {
-        if (window.bindings == this) {
-          window.engine.getActivityControlSurface().detachFromActivityForConfigChanges();
-        }
+    for (final Window window : windows.values()) {
+      if (window.bindings == this) {
+        window.engine.getActivityControlSurface().detachFromActivityForConfigChanges();
       }
     }
     activityBinding = null;
@@ -381,11 +1069,9 @@ public class OverlayWindowPlugin implements FlutterPlugin, MethodCallHandler, Se
 
   @Override
   public void onDetachedFromActivity() {
-    synchronized (windows) {
-      for (final Window window : windows.values()) {
-        if (window.bindings == this) {
-          window.engine.getActivityControlSurface().detachFromActivity();
-        }
+    for (final Window window : windows.values()) {
+      if (window.bindings == this) {
+        window.engine.getActivityControlSurface().detachFromActivity();
       }
     }
     activityBinding = null;
@@ -0,0 +1,141 @@
+package io.baku.overlay_window;
+
+import android.view.WindowManager.LayoutParams;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A sparse set of {@link LayoutParams} changes. Fields whose bit is not set in {@link #mask} are
+ * left unchanged when the update is applied.
+ */
+class ParamsUpdate {
+  static final int
+      FLAGS = 1,
+      GRAVITY = 1 << 1,
+      X = 1 << 2,
+      Y = 1 << 3,
+      WIDTH = 1 << 4,
+      HEIGHT = 1 << 5,
+      ALPHA = 1 << 6;
+
+  /**
+   * Size of the binary record read by {@link #fromBuffer}.
+   */
+  static final int RECORD_SIZE = 8 * 4;
+
+  int mask;
+  int flags, gravity, x, y, width, height;
+  float alpha;
+
+  /**
+   * Decodes the {@code [flags, gravity, x, y, width, height, alpha]} list produced by
+   * {@code MethodChannelOverlayWindow.serializeParams}.
+   */
+  static ParamsUpdate fromList(List<Number> serializedParams) {
+    final ParamsUpdate update = new ParamsUpdate();
+    if (serializedParams.get(0) != null) {
+      update.mask |= FLAGS;
+      update.flags = serializedParams.get(0).intValue();
+    }
+    if (serializedParams.get(1) != null) {
+      update.mask |= GRAVITY;
+      update.gravity = serializedParams.get(1).intValue();
+    }
+    if (serializedParams.get(2) != null) {
+      update.mask |= X;
+      update.x = serializedParams.get(2).intValue();
+    }
+    if (serializedParams.get(3) != null) {
+      update.mask |= Y;
+      update.y = serializedParams.get(3).intValue();
+    }
+    if (serializedParams.get(4) != null) {
+      update.mask |= WIDTH;
+      update.width = serializedParams.get(4).intValue();
+    }
+    if (serializedParams.get(5) != null) {
+      update.mask |= HEIGHT;
+      update.height = serializedParams.get(5).intValue();
+    }
+    if (serializedParams.get(6) != null) {
+      update.mask |= ALPHA;
+      update.alpha = serializedParams.get(6).floatValue();
+    }
+    return update;
+  }
+
+  /**
+   * Reads a fixed-layout record of {@code int32 mask, int32 flags, int32 gravity, int32 x, int32 y,
+   * int32 width, int32 height, float32 alpha} in the buffer's byte order. Fields whose bit is not
+   * set in the mask are ignored.
+   */
+  static ParamsUpdate fromBuffer(ByteBuffer buffer) {
+    final ParamsUpdate update = new ParamsUpdate();
+    update.mask = buffer.getInt();
+    update.flags = buffer.getInt();
+    update.gravity = buffer.getInt();
+    update.x = buffer.getInt();
+    update.y = buffer.getInt();
+    update.width = buffer.getInt();
+    update.height = buffer.getInt();
+    update.alpha = buffer.getFloat();
+    return update;
+  }
+
+  boolean isEmpty() {
+    return mask == 0;
+  }
+
+  /**
+   * Overlays the fields set in {@code newer} onto this update.
+   */
+  void merge(ParamsUpdate newer) {
+    if ((newer.mask & FLAGS) != 0) {
+      flags = newer.flags;
+    }
+    if ((newer.mask & GRAVITY) != 0) {
+      gravity = newer.gravity;
+    }
+    if ((newer.mask & X) != 0) {
+      x = newer.x;
+    }
+    if ((newer.mask & Y) != 0) {
+      y = newer.y;
+    }
+    if ((newer.mask & WIDTH) != 0) {
+      width = newer.width;
+    }
+    if ((newer.mask & HEIGHT) != 0) {
+      height = newer.height;
+    }
+    if ((newer.mask & ALPHA) != 0) {
+      alpha = newer.alpha;
+    }
+    mask |= newer.mask;
+  }
+
+  void applyTo(LayoutParams params) {
+    if ((mask & FLAGS) != 0) {
+      params.flags = flags;
+    }
+    if ((mask & GRAVITY) != 0) {
+      params.gravity = gravity;
+    }
+    if ((mask & X) != 0) {
+      params.x = x;
+    }
+    if ((mask & Y) != 0) {
+      params.y = y;
+    }
+    if ((mask & WIDTH) != 0) {
+      params.width = width;
+    }
+    if ((mask & HEIGHT) != 0) {
+      params.height = height;
+    }
+    if ((mask & ALPHA) != 0) {
+      params.alpha = alpha;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package io.baku.overlay_window;
+
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.WindowManager;
+import android.view.WindowManager.LayoutParams;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AccelerateInterpolator;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+import android.view.animation.PathInterpolator;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * Animates the position, size and alpha of an overlay window on the {@link Choreographer}, with one
+ * {@link WindowManager#updateViewLayout} per frame and no channel traffic until the animation ends.
+ */
+class WindowAnimator implements Choreographer.FrameCallback {
+  static Interpolator interpolatorForCurve(String curve) {
+    switch (curve) {
+      case "linear":
+        return new LinearInterpolator();
+      case "easeIn":
+        return new AccelerateInterpolator();
+      case "easeOut":
+        return new DecelerateInterpolator();
+      case "easeInOut":
+        return new AccelerateDecelerateInterpolator();
+      case "fastOutSlowIn":
+        return Build.VERSION.SDK_INT >= 21 ?
+            new PathInterpolator(0.4f, 0, 0.2f, 1) :
+            new AccelerateDecelerateInterpolator();
+      default:
+        throw new IllegalArgumentException("Unknown curve " + curve);
+    }
+  }
+
+  private static int lerp(int from, int to, float t) {
+    return Math.round(from + (to - from) * t);
+  }
+
+  /**
+   * Sizes can be {@link LayoutParams#MATCH_PARENT} or {@link LayoutParams#WRAP_CONTENT}, which
+   * can't be interpolated. Those snap to the target at the end of the animation instead.
+   */
+  private static int lerpSize(int from, int to, float t, float f) {
+    if (from < 0 || to < 0) {
+      return t < 1 ? from : to;
+    }
+    return lerp(from, to, f);
+  }
+
+  private final WindowManager windowManager;
+  private final View view;
+  private final ParamsUpdate target;
+  private final long durationNanos;
+  private final Interpolator interpolator;
+  private final Result result;
+
+  private final int fromX, fromY, fromWidth, fromHeight;
+  private final float fromAlpha;
+
+  private long startTimeNanos = -1;
+  private boolean isRunning;
+
+  WindowAnimator(
+      WindowManager windowManager,
+      View view,
+      ParamsUpdate target,
+      long durationMillis,
+      Interpolator interpolator,
+      Result result) {
+    this.windowManager = windowManager;
+    this.view = view;
+    this.target = target;
+    this.durationNanos = durationMillis * 1000000;
+    this.interpolator = interpolator;
+    this.result = result;
+
+    final LayoutParams params = (LayoutParams) view.getLayoutParams();
+    fromX = params.x;
+    fromY = params.y;
+    fromWidth = params.width;
+    fromHeight = params.height;
+    fromAlpha = params.alpha;
+
+    // Flags and gravity can't be interpolated, so apply them up front.
+    if ((target.mask & ParamsUpdate.FLAGS) != 0) {
+      params.flags = target.flags;
+    }
+    if ((target.mask & ParamsUpdate.GRAVITY) != 0) {
+      params.gravity = target.gravity;
+    }
+  }
+
+  void start() {
+    isRunning = true;
+    Choreographer.getInstance().postFrameCallback(this);
+  }
+
+  /**
+   * Stops the animation where it is, completing the result with {@code false}. Has no effect if the
+   * animation has already finished.
+   */
+  void cancel() {
+    if (!isRunning) {
+      return;
+    }
+    isRunning = false;
+    Choreographer.getInstance().removeFrameCallback(this);
+    result.success(false);
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    if (!isRunning) {
+      return;
+    }
+    if (startTimeNanos < 0) {
+      startTimeNanos = frameTimeNanos;
+    }
+
+    final float t = durationNanos <= 0 ?
+        1 : Math.min(1, (float) (frameTimeNanos - startTimeNanos) / durationNanos);
+    final float f = interpolator.getInterpolation(t);
+
+    final LayoutParams params = (LayoutParams) view.getLayoutParams();
+    if ((target.mask & ParamsUpdate.X) != 0) {
+      params.x = lerp(fromX, target.x, f);
+    }
+    if ((target.mask & ParamsUpdate.Y) != 0) {
+      params.y = lerp(fromY, target.y, f);
+    }
+    if ((target.mask & ParamsUpdate.WIDTH) != 0) {
+      params.width = lerpSize(fromWidth, target.width, t, f);
+    }
+    if ((target.mask & ParamsUpdate.HEIGHT) != 0) {
+      params.height = lerpSize(fromHeight, target.height, t, f);
+    }
+    if ((target.mask & ParamsUpdate.ALPHA) != 0) {
+      params.alpha = fromAlpha + (target.alpha - fromAlpha) * f;
+    }
+    windowManager.updateViewLayout(view, params);
+
+    if (t < 1) {
+      Choreographer.getInstance().postFrameCallback(this);
+    } else {
+      isRunning = false;
+      result.success(true);
+    }
+  }
+}
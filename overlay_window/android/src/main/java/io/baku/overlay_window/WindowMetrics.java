@@ -0,0 +1,80 @@
+package io.baku.overlay_window;
+
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Startup and frame timing metrics for an overlay window, aggregated natively so that reporting
+ * doesn't cost per-frame channel traffic.
+ */
+class WindowMetrics {
+  /**
+   * Upper bounds of histogram buckets, in microseconds. The last bucket is unbounded.
+   */
+  static final long[] BUCKET_BOUNDS_MICROS = {
+      2000, 4000, 8000, 12000, 16000, 24000, 33000, 50000, 100000
+  };
+
+  static class Histogram {
+    final long[] counts = new long[BUCKET_BOUNDS_MICROS.length + 1];
+
+    void record(long micros) {
+      int i = 0;
+      while (i < BUCKET_BOUNDS_MICROS.length && micros > BUCKET_BOUNDS_MICROS[i]) {
+        ++i;
+      }
+      ++counts[i];
+    }
+
+    List<Long> toList() {
+      final List<Long> list = new ArrayList<>(counts.length);
+      for (final long count : counts) {
+        list.add(count);
+      }
+      return list;
+    }
+  }
+
+  private final long createdAtMillis = SystemClock.uptimeMillis();
+  private long firstFrameMillis = -1;
+
+  private final Histogram build = new Histogram(), raster = new Histogram();
+  private long frameCount, jankCount;
+
+  void onFirstFrame() {
+    if (firstFrameMillis < 0) {
+      firstFrameMillis = SystemClock.uptimeMillis() - createdAtMillis;
+    }
+  }
+
+  /**
+   * Records a batch of frame timings.
+   *
+   * @param timings alternating build and raster durations, in microseconds.
+   * @param frameBudgetMicros frames whose build or raster phase exceeds this count as jank.
+   */
+  void recordFrames(long[] timings, long frameBudgetMicros) {
+    for (int i = 0; i + 1 < timings.length; i += 2) {
+      build.record(timings[i]);
+      raster.record(timings[i + 1]);
+      ++frameCount;
+      if (timings[i] > frameBudgetMicros || timings[i + 1] > frameBudgetMicros) {
+        ++jankCount;
+      }
+    }
+  }
+
+  Map<String, Object> toMap() {
+    final Map<String, Object> map = new HashMap<>();
+    map.put("timeToFirstFrame", firstFrameMillis < 0 ? null : firstFrameMillis);
+    map.put("frameCount", frameCount);
+    map.put("jankCount", jankCount);
+    map.put("build", build.toList());
+    map.put("raster", raster.toList());
+    return map;
+  }
+}
@@ -0,0 +1,154 @@
+package io.baku.overlay_window;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.view.WindowManager.LayoutParams;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ParamsUpdateTest {
+  /**
+   * Records produced by {@code MethodChannelOverlayWindow.encodeParams}, asserted byte for byte by
+   * the Dart test 'encodeParams matches the platform decoder fixtures'.
+   */
+  private static final String
+      SPARSE_RECORD = "03000000" + "64000000" + "00000000" + "00000000" + "0a000000" +
+          "00000000" + "00000000" + "feffffff" + "0000003f",
+      FULL_RECORD = "01000000" + "7f000000" + "08020000" + "33000000" + "fbffffff" +
+          "07000000" + "2c010000" + "c8000000" + "0000803e";
+
+  private static ByteBuffer message(String hex) {
+    final byte[] bytes = new byte[hex.length() / 2];
+    for (int i = 0; i < bytes.length; ++i) {
+      bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+    }
+    return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static LayoutParams existingParams() {
+    final LayoutParams params = new LayoutParams();
+    params.flags = 1;
+    params.gravity = 2;
+    params.x = 3;
+    params.y = 4;
+    params.width = 5;
+    params.height = 6;
+    params.alpha = .75f;
+    return params;
+  }
+
+  @Test
+  public void fromBuffer_sparseRecord() {
+    final ByteBuffer message = message(SPARSE_RECORD);
+    assertEquals(ParamsUpdate.RECORD_SIZE + 4, message.remaining());
+    assertEquals(3, message.getInt());
+
+    final ParamsUpdate update = ParamsUpdate.fromBuffer(message);
+    assertEquals(0, message.remaining());
+    assertEquals(ParamsUpdate.X | ParamsUpdate.HEIGHT | ParamsUpdate.ALPHA, update.mask);
+
+    final LayoutParams params = existingParams();
+    update.applyTo(params);
+    assertEquals(1, params.flags);
+    assertEquals(2, params.gravity);
+    assertEquals(10, params.x);
+    assertEquals(4, params.y);
+    assertEquals(5, params.width);
+    assertEquals(LayoutParams.WRAP_CONTENT, params.height);
+    assertEquals(.5f, params.alpha, 0);
+  }
+
+  @Test
+  public void fromBuffer_fullRecord() {
+    final ByteBuffer message = message(FULL_RECORD);
+    assertEquals(1, message.getInt());
+
+    final ParamsUpdate update = ParamsUpdate.fromBuffer(message);
+    final LayoutParams params = existingParams();
+    update.applyTo(params);
+    assertEquals(0x208, params.flags);
+    assertEquals(0x33, params.gravity);
+    assertEquals(-5, params.x);
+    assertEquals(7, params.y);
+    assertEquals(300, params.width);
+    assertEquals(200, params.height);
+    assertEquals(.25f, params.alpha, 0);
+  }
+
+  @Test
+  public void fromList_matchesFromBuffer() {
+    final ParamsUpdate fromList = ParamsUpdate.fromList(
+        Arrays.<Number>asList(null, null, 10, null, null, -2, .5));
+    final ByteBuffer message = message(SPARSE_RECORD);
+    message.getInt();
+    final ParamsUpdate fromBuffer = ParamsUpdate.fromBuffer(message);
+
+    final LayoutParams a = existingParams(), b = existingParams();
+    fromList.applyTo(a);
+    fromBuffer.applyTo(b);
+    assertEquals(fromBuffer.mask, fromList.mask);
+    assertEquals(b.x, a.x);
+    assertEquals(b.height, a.height);
+    assertEquals(b.alpha, a.alpha, 0);
+  }
+
+  @Test
+  public void merge_newerFieldsWinAndMasksCombine() {
+    final ParamsUpdate older = ParamsUpdate.fromList(
+        Arrays.<Number>asList(null, 0x33, 1, 2, null, null, null));
+    final ParamsUpdate newer = ParamsUpdate.fromList(
+        Arrays.<Number>asList(null, null, 10, null, 100, null, null));
+
+    older.merge(newer);
+
+    assertEquals(
+        ParamsUpdate.GRAVITY | ParamsUpdate.X | ParamsUpdate.Y | ParamsUpdate.WIDTH,
+        older.mask);
+    final LayoutParams params = existingParams();
+    older.applyTo(params);
+    assertEquals(1, params.flags);
+    assertEquals(0x33, params.gravity);
+    assertEquals(10, params.x);
+    assertEquals(2, params.y);
+    assertEquals(100, params.width);
+    assertEquals(6, params.height);
+    assertEquals(.75f, params.alpha, 0);
+  }
+
+  @Test
+  public void merge_unsetFieldsDoNotOverwrite() {
+    final ParamsUpdate older = ParamsUpdate.fromList(
+        Arrays.<Number>asList(null, null, 10, null, null, null, .5));
+    // An unset field still carries a value in the record; it must be ignored.
+    final ByteBuffer message = message(
+        "00000000" + "04000000" + "ffffffff" + "ffffffff" + "14000000" + "ffffffff" + "ffffffff" +
+            "ffffffff" + "00000000");
+    message.getInt();
+    final ParamsUpdate newer = ParamsUpdate.fromBuffer(message);
+
+    older.merge(newer);
+
+    final LayoutParams params = existingParams();
+    older.applyTo(params);
+    assertEquals(1, params.flags);
+    assertEquals(2, params.gravity);
+    assertEquals(20, params.x);
+    assertEquals(.5f, params.alpha, 0);
+  }
+
+  @Test
+  public void isEmpty() {
+    assertTrue(new ParamsUpdate().isEmpty());
+    assertFalse(ParamsUpdate.fromList(
+        Arrays.<Number>asList(null, null, null, null, null, null, 1)).isEmpty());
+  }
+}
@@ -252,6 +252,153 @@ class WindowParams {
   });
 }
 
+/// Easing curves for [OverlayWindow.animate], interpolated natively.
+enum WindowCurve {
+  linear,
+  easeIn,
+  easeOut,
+  easeInOut,
+  fastOutSlowIn,
+}
+
+/// How an overlay window renders and is composited.
+enum RenderMode {
+  /// A transparent `SurfaceView` in a translucent window. Supports
+  /// transparency anywhere in the window, at the cost of the compositor
+  /// blending the full window area every frame.
+  translucentSurface,
+
+  /// An opaque `SurfaceView` in an opaque window. The overlay must paint
+  /// every pixel.
+  opaqueSurface,
+
+  /// A `TextureView` in a translucent window, for overlays that need
+  /// transparency and a single compositor layer.
+  translucentTexture,
+
+  /// A `TextureView` rendering into an opaque window, leaving a single opaque
+  /// layer that hardware composers can usually scan out without blending.
+  /// Best for small solid bars. The overlay must paint every pixel.
+  opaqueTexture,
+}
+
+/// What to keep of an overlay window while it is hidden.
+enum HideMode {
+  /// Keep the render surface and caches, for the quickest show.
+  retain,
+
+  /// Release the render surface and ask the engine to drop its caches. The
+  /// window redraws from scratch when shown again.
+  release,
+
+  /// Like [release], but keep a snapshot of the last frame to show until the
+  /// window redraws.
+  releaseWithSnapshot,
+}
+
+/// A change to a single overlay window, for use with
+/// [OverlayWindow.applyBatch].
+class WindowUpdate {
+  final OverlayWindow window;
+  final WindowParams? params;
+  final int? visibility;
+
+  /// How to hide the window if [visibility] hides it.
+  final HideMode hideMode;
+
+  const WindowUpdate(
+    this.window, {
+    this.params,
+    this.visibility,
+    this.hideMode = HideMode.retain,
+  });
+}
+
+/// Frame phase durations bucketed by [OverlayMetrics.bucketBounds].
+class Histogram {
+  /// Frame counts per bucket. The last bucket counts frames longer than the
+  /// last bound.
+  final List<int> counts;
+
+  const Histogram(this.counts);
+}
+
+class WindowMetrics {
+  /// Time from window creation to the first rendered frame, if it has
+  /// rendered yet.
+  final Duration? timeToFirstFrame;
+  final int frameCount;
+
+  /// Frames whose build or raster phase exceeded the display's frame budget.
+  final int jankCount;
+  final Histogram build, raster;
+  final int width, height;
+
+  /// The window's Android `PixelFormat`.
+  final int pixelFormat;
+  final bool isSurfaceReleased;
+
+  const WindowMetrics({
+    this.timeToFirstFrame,
+    required this.frameCount,
+    required this.jankCount,
+    required this.build,
+    required this.raster,
+    required this.width,
+    required this.height,
+    required this.pixelFormat,
+    required this.isSurfaceReleased,
+  });
+
+  WindowMetrics.fromMap(Map map)
+      : this(
+          timeToFirstFrame: map['timeToFirstFrame'] == null
+              ? null
+              : Duration(milliseconds: map['timeToFirstFrame'] as int),
+          frameCount: map['frameCount'] as int,
+          jankCount: map['jankCount'] as int,
+          build: Histogram((map['build'] as List).cast()),
+          raster: Histogram((map['raster'] as List).cast()),
+          width: map['width'] as int,
+          height: map['height'] as int,
+          pixelFormat: map['pixelFormat'] as int,
+          isSurfaceReleased: map['isSurfaceReleased'] as bool,
+        );
+}
+
+class OverlayMetrics {
+  final int windowCount;
+
+  /// Live engines, including idle pooled engines.
+  final int engineCount;
+
+  /// Upper bounds of the histogram buckets.
+  final List<Duration> bucketBounds;
+  final Map<OverlayWindow, WindowMetrics> windows;
+
+  const OverlayMetrics({
+    required this.windowCount,
+    required this.engineCount,
+    required this.bucketBounds,
+    required this.windows,
+  });
+
+  OverlayMetrics.fromMap(Map map)
+      : this(
+          windowCount: map['windowCount'] as int,
+          engineCount: map['engineCount'] as int,
+          bucketBounds: [
+            for (final bound in map['bucketBounds'] as List<int>)
+              Duration(microseconds: bound),
+          ],
+          windows: {
+            for (final MapEntry(:key, :value) in (map['windows'] as Map).entries)
+              OverlayWindow.forHandle(key as int):
+                  WindowMetrics.fromMap(value as Map),
+          },
+        );
+}
+
 typedef Entrypoint = void Function(OverlayWindow window);
 
 class OverlayWindow {
@@ -270,25 +417,92 @@ class OverlayWindow {
   /// <a href="#attr_android:visibility">{@code android:visibility}.
   static const gone = 0x00000008;
 
-  final int _handle;
-  OverlayWindow.forHandle(this._handle);
+  final int handle;
+  OverlayWindow.forHandle(this.handle);
 
-  Future<void> update(WindowParams params) =>
-      OverlayWindowPlatform.instance.updateWindow(_handle, params);
+  @override
+  bool operator ==(Object other) =>
+      other is OverlayWindow && other.handle == handle;
 
-  Future<void> setVisibility(int visibility) =>
-      OverlayWindowPlatform.instance.setVisibility(_handle, visibility);
+  @override
+  int get hashCode => handle.hashCode;
 
+  Future<void> update(WindowParams params) =>
+      OverlayWindowPlatform.instance.updateWindow(handle, params);
+
+  /// Animates the window's position, size and alpha towards [target] on the
+  /// platform side, independently of the Dart UI thread. Flags and gravity are
+  /// applied immediately, and sizes that are [WindowParams.matchParent] or
+  /// [WindowParams.wrapContent] snap at the end.
+  ///
+  /// Completes with true when the animation finishes, or false if it was
+  /// interrupted by another update or animation of this window.
+  Future<bool> animate(
+    WindowParams target,
+    Duration duration, {
+    WindowCurve curve = WindowCurve.linear,
+  }) =>
+      OverlayWindowPlatform.instance
+          .animateWindow(handle, target, duration, curve);
+
+  /// Sets the window's visibility. When hiding, [hideMode] controls whether
+  /// the window keeps its render surface. Windows hidden with
+  /// [HideMode.retain] may still release their surfaces later if the system
+  /// runs low on memory.
+  Future<void> setVisibility(
+    int visibility, {
+    HideMode hideMode = HideMode.retain,
+  }) =>
+      OverlayWindowPlatform.instance
+          .setVisibility(handle, visibility, hideMode);
+
+  /// Removes the window from the screen. Its engine is torn down later, when
+  /// the platform thread is idle.
   Future<void> destroy() =>
-      OverlayWindowPlatform.instance.destroyWindow(_handle);
+      OverlayWindowPlatform.instance.destroyWindow(handle);
+
+  /// Destroys every window created from this engine.
+  static Future<void> destroyAll() =>
+      OverlayWindowPlatform.instance.destroyAll();
+
+  /// Applies several window changes in a single platform round-trip. Updates
+  /// to the same window are merged in order, so each window is laid out at
+  /// most once per batch.
+  static Future<void> applyBatch(Iterable<WindowUpdate> updates) =>
+      OverlayWindowPlatform.instance.applyBatch(updates);
+
+  /// Periodic snapshots of per-window startup and frame timing metrics,
+  /// aggregated on the platform side.
+  static Stream<OverlayMetrics> metrics({
+    Duration interval = const Duration(seconds: 5),
+  }) =>
+      OverlayWindowPlatform.instance.metrics(interval);
 
   static Future<bool> requestPermissions() =>
       OverlayWindowPlatform.instance.requestPermissions();
   static Future<bool> hasPermissions() =>
       OverlayWindowPlatform.instance.hasPermissions();
 
+  /// Sets the number of idle engines to keep pre-warmed for new windows. A
+  /// window created while an idle engine is available starts almost
+  /// immediately; the pool is refilled in the background afterwards.
+  ///
+  /// Defaults to 0, in which case each window boots its own engine on demand.
+  static Future<void> setEnginePoolSize(int size) =>
+      OverlayWindowPlatform.instance.setEnginePoolSize(size);
+
+  /// Creates a window running [entrypoint].
+  ///
+  /// If [waitForFirstFrame] is set, the window is kept invisible and
+  /// untouchable until it has displayed its first frame, and the returned
+  /// future completes only then. If no frame arrives within 10 seconds, the
+  /// window is destroyed and the future completes with an error.
   static Future<OverlayWindow> create(
-          Entrypoint entrypoint, WindowParams params) async =>
+    Entrypoint entrypoint,
+    WindowParams params, {
+    RenderMode renderMode = RenderMode.translucentSurface,
+    bool waitForFirstFrame = false,
+  }) async =>
       OverlayWindow.forHandle(await OverlayWindowPlatform.instance
-          .createWindow(entrypoint, params));
+          .createWindow(entrypoint, params, renderMode, waitForFirstFrame));
 }
@@ -1,18 +1,65 @@
+import 'dart:typed_data';
 import 'dart:ui';
 
+import 'package:flutter/scheduler.dart';
 import 'package:flutter/services.dart';
+import 'package:flutter/widgets.dart';
 
 import 'overlay_window.dart';
 import 'overlay_window_platform_interface.dart';
 
 @pragma('vm:entry-point')
-void overlayMain(List<String> args) => PluginUtilities.getCallbackFromHandle(
-        CallbackHandle.fromRawHandle(int.parse(args[0])))!(
-    OverlayWindow.forHandle(int.parse(args[1])));
+void overlayMain(List<String> args) {
+  final handle = int.parse(args[1]);
+
+  // Forward frame timings to the platform side, which aggregates them for
+  // [OverlayWindow.metrics]. The engine already batches these reports.
+  WidgetsFlutterBinding.ensureInitialized();
+  SchedulerBinding.instance.addTimingsCallback(
+    (timings) => MethodChannelOverlayWindow.methodChannel.invokeMethod(
+      'reportFrameTimings',
+      [
+        handle,
+        Int64List.fromList([
+          for (final timing in timings) ...[
+            timing.buildDuration.inMicroseconds,
+            timing.rasterDuration.inMicroseconds,
+          ],
+        ]),
+      ],
+    ),
+  );
+
+  PluginUtilities.getCallbackFromHandle(
+          CallbackHandle.fromRawHandle(int.parse(args[0])))!(
+      OverlayWindow.forHandle(handle));
+}
+
+/// Entrypoint for pre-warmed engines in the native engine pool. The engine
+/// boots and then idles until it is assigned a window, at which point it runs
+/// the window entrypoint as if it had been started through [overlayMain].
+@pragma('vm:entry-point')
+void overlayPooledMain() {
+  WidgetsFlutterBinding.ensureInitialized();
+
+  const engineChannel = MethodChannel('overlay_window.engine');
+  engineChannel.setMethodCallHandler((call) async {
+    switch (call.method) {
+      case 'start':
+        engineChannel.setMethodCallHandler(null);
+        overlayMain((call.arguments as List).cast());
+    }
+  });
+}
 
 /// An implementation of [RideDevicePolicyPlatform] that uses method channels.
 class MethodChannelOverlayWindow extends OverlayWindowPlatform {
   static const methodChannel = MethodChannel('overlay_window');
+  static const metricsChannel = EventChannel('overlay_window.metrics');
+
+  /// Binary channel for layout updates. Each message is a fixed-layout
+  /// little-endian record; see [encodeParams].
+  static const paramsChannel = 'overlay_window.params';
 
   static List<num?> serializeParams(WindowParams params) => [
         params.flags,
@@ -24,6 +71,36 @@ class MethodChannelOverlayWindow extends OverlayWindowPlatform {
         params.alpha,
       ];
 
+  /// Encodes a layout update as `int32 handle, int32 mask, int32 flags,
+  /// int32 gravity, int32 x, int32 y, int32 width, int32 height,
+  /// float32 alpha`, where bit i of the mask is set if the i-th param (in
+  /// [serializeParams] order) is present.
+  static ByteData encodeParams(int handle, WindowParams params) {
+    final data = ByteData(9 * 4);
+    int mask = 0;
+    void setInt(int index, int? value) {
+      if (value != null) {
+        mask |= 1 << index;
+        data.setInt32((index + 2) * 4, value, Endian.little);
+      }
+    }
+
+    setInt(0, params.flags);
+    setInt(1, params.gravity);
+    setInt(2, params.x);
+    setInt(3, params.y);
+    setInt(4, params.width);
+    setInt(5, params.height);
+    if (params.alpha != null) {
+      mask |= 1 << 6;
+      data.setFloat32(8 * 4, params.alpha!, Endian.little);
+    }
+
+    return data
+      ..setInt32(0, handle, Endian.little)
+      ..setInt32(4, mask, Endian.little);
+  }
+
   @override
   Future<bool> requestPermissions() async =>
       await methodChannel.invokeMethod('requestPermissions') as bool;
@@ -33,25 +110,80 @@ class MethodChannelOverlayWindow extends OverlayWindowPlatform {
       await methodChannel.invokeMethod('hasPermissions') as bool;
 
   @override
-  Future<int> createWindow(Entrypoint entrypoint, WindowParams params) async {
+  Future<int> createWindow(
+    Entrypoint entrypoint,
+    WindowParams params,
+    RenderMode renderMode,
+    bool waitForFirstFrame,
+  ) async {
     final entrypointHandle = PluginUtilities.getCallbackHandle(entrypoint);
     if (entrypointHandle == null) {
       throw ArgumentError(
           'Entrypoint must be a top-level or static function', 'entrypoint');
     }
-    return await methodChannel.invokeMethod('createWindow',
-        [entrypointHandle.toRawHandle(), ...serializeParams(params)]) as int;
+    return await methodChannel.invokeMethod('createWindow', [
+      entrypointHandle.toRawHandle(),
+      ...serializeParams(params),
+      renderMode.index,
+      waitForFirstFrame,
+    ]) as int;
   }
 
   @override
-  Future<void> updateWindow(int handle, WindowParams params) => methodChannel
-      .invokeMethod('updateWindow', [handle, ...serializeParams(params)]);
+  Stream<OverlayMetrics> metrics(Duration interval) => metricsChannel
+      .receiveBroadcastStream(interval.inMilliseconds)
+      .map((event) => OverlayMetrics.fromMap(event as Map));
+
+  @override
+  Future<void> setEnginePoolSize(int size) =>
+      methodChannel.invokeMethod('setEnginePoolSize', size);
+
+  @override
+  Future<void> updateWindow(int handle, WindowParams params) async {
+    final reply = await methodChannel.binaryMessenger
+        .send(paramsChannel, encodeParams(handle, params));
+    if (reply == null) {
+      throw MissingPluginException(
+          'No implementation found for $paramsChannel');
+    }
+    methodChannel.codec.decodeEnvelope(reply);
+  }
 
   @override
-  Future<void> setVisibility(int handle, int visibility) =>
-      methodChannel.invokeMethod('setVisibility', [handle, visibility]);
+  Future<bool> animateWindow(
+    int handle,
+    WindowParams target,
+    Duration duration,
+    WindowCurve curve,
+  ) async =>
+      await methodChannel.invokeMethod('animateWindow', [
+        handle,
+        duration.inMilliseconds,
+        curve.name,
+        ...serializeParams(target),
+      ]) as bool;
+
+  @override
+  Future<void> setVisibility(int handle, int visibility, HideMode hideMode) =>
+      methodChannel.invokeMethod(
+          'setVisibility', [handle, visibility, hideMode.index]);
+
+  @override
+  Future<void> applyBatch(Iterable<WindowUpdate> updates) =>
+      methodChannel.invokeMethod('applyBatch', [
+        for (final update in updates)
+          [
+            update.window.handle,
+            update.visibility,
+            update.hideMode.index,
+            ...serializeParams(update.params ?? const WindowParams()),
+          ],
+      ]);
 
   @override
   Future<void> destroyWindow(int handle) =>
       methodChannel.invokeMethod('destroyWindow', handle);
+
+  @override
+  Future<void> destroyAll() => methodChannel.invokeMethod('destroyAll');
 }
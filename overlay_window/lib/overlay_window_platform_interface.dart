@@ -34,8 +34,23 @@ abstract class OverlayWindowPlatform extends PlatformInterface {
 
   Future<bool> requestPermissions();
   Future<bool> hasPermissions();
-  Future<int> createWindow(Entrypoint entrypoint, WindowParams params);
+  Future<int> createWindow(
+    Entrypoint entrypoint,
+    WindowParams params,
+    RenderMode renderMode,
+    bool waitForFirstFrame,
+  );
+  Future<void> setEnginePoolSize(int size);
+  Stream<OverlayMetrics> metrics(Duration interval);
   Future<void> updateWindow(int handle, WindowParams params);
-  Future<void> setVisibility(int handle, int visibility);
+  Future<bool> animateWindow(
+    int handle,
+    WindowParams target,
+    Duration duration,
+    WindowCurve curve,
+  );
+  Future<void> setVisibility(int handle, int visibility, HideMode hideMode);
+  Future<void> applyBatch(Iterable<WindowUpdate> updates);
   Future<void> destroyWindow(int handle);
+  Future<void> destroyAll();
 }
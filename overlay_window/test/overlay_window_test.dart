@@ -1,3 +1,5 @@
+import 'dart:typed_data';
+
 import 'package:flutter_test/flutter_test.dart';
 import 'package:overlay_window/overlay_window.dart';
 import 'package:overlay_window/overlay_window_method_channel.dart';
@@ -11,7 +13,12 @@ class FakeOverlayWindowPlatform extends Fake
   final windows = <int, WindowParams>{};
 
   @override
-  Future<int> createWindow(Function entrypoint, WindowParams params) async {
+  Future<int> createWindow(
+    Function entrypoint,
+    WindowParams params,
+    RenderMode renderMode,
+    bool waitForFirstFrame,
+  ) async {
     final handle = nextHandle++;
     windows[handle] = params;
     entrypoint();
@@ -20,6 +27,9 @@ class FakeOverlayWindowPlatform extends Fake
 
   @override
   Future<void> destroyWindow(int handle) async => windows.remove(handle);
+
+  @override
+  Future<void> destroyAll() async => windows.clear();
 }
 
 void main() {
@@ -29,6 +39,54 @@ void main() {
     expect(initialPlatform, isInstanceOf<MethodChannelOverlayWindow>());
   });
 
+  test('encodeParams', () {
+    final data = MethodChannelOverlayWindow.encodeParams(
+      3,
+      const WindowParams(x: 10, height: -2, alpha: 0.5),
+    );
+
+    expect(data.lengthInBytes, 36);
+    expect(data.getInt32(0, Endian.little), 3);
+    expect(data.getInt32(4, Endian.little), 1 << 2 | 1 << 5 | 1 << 6);
+    expect(data.getInt32(16, Endian.little), 10);
+    expect(data.getInt32(28, Endian.little), -2);
+    expect(data.getFloat32(32, Endian.little), 0.5);
+  });
+
+  // The same records are decoded by ParamsUpdateTest on the Java side, so
+  // changing either layout breaks one of the two tests.
+  test('encodeParams matches the platform decoder fixtures', () {
+    String hex(ByteData data) => data.buffer
+        .asUint8List(data.offsetInBytes, data.lengthInBytes)
+        .map((b) => b.toRadixString(16).padLeft(2, '0'))
+        .join();
+
+    expect(
+      hex(MethodChannelOverlayWindow.encodeParams(
+        3,
+        const WindowParams(x: 10, height: -2, alpha: 0.5),
+      )),
+      '03000000' '64000000' '00000000' '00000000' '0a000000' '00000000'
+          '00000000' 'feffffff' '0000003f',
+    );
+    expect(
+      hex(MethodChannelOverlayWindow.encodeParams(
+        1,
+        const WindowParams(
+          flags: 0x208,
+          gravity: 0x33,
+          x: -5,
+          y: 7,
+          width: 300,
+          height: 200,
+          alpha: 0.25,
+        ),
+      )),
+      '01000000' '7f000000' '08020000' '33000000' 'fbffffff' '07000000'
+          '2c010000' 'c8000000' '0000803e',
+    );
+  });
+
   group('fake tests', () {
     setUp(() => OverlayWindowPlatform.instance = FakeOverlayWindowPlatform());
   });
@@ -0,0 +1,170 @@
+package io.baku.ride_app_catalog;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.flutter.plugin.common.EventChannel.EventSink;
+
+/**
+ * An in-memory catalog of launchable apps, kept up to date from package broadcasts. The listener
+ * first receives the whole catalog and then only the entries that were added, changed or removed.
+ * <p>
+ * Apart from the executor, must be used from the main thread.
+ */
+class AppCatalog {
+  private final Context context;
+  private final PackageManager packageManager;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private final IconCache iconCache;
+
+  /**
+   * Entries by package name, or null until first listened to. Confined to the executor.
+   */
+  private Map<String, Map<String, Object>> apps;
+  private EventSink sink;
+
+  private final BroadcastReceiver packageReceiver = new BroadcastReceiver() {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+      final Uri data = intent.getData();
+      if (data == null) {
+        return;
+      }
+      if (Intent.ACTION_PACKAGE_REMOVED.equals(intent.getAction()) &&
+          intent.getBooleanExtra(Intent.EXTRA_REPLACING, false)) {
+        // ACTION_PACKAGE_REPLACED follows.
+        return;
+      }
+
+      final String packageName = data.getSchemeSpecificPart();
+      iconCache.invalidate(packageName);
+      executor.execute(() -> refresh(packageName));
+    }
+  };
+
+  AppCatalog(Context context, IconCache iconCache) {
+    this.context = context;
+    this.iconCache = iconCache;
+    packageManager = context.getPackageManager();
+
+    final IntentFilter filter = new IntentFilter();
+    filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+    filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+    filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+    filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+    filter.addDataScheme("package");
+    context.registerReceiver(packageReceiver, filter);
+  }
+
+  void dispose() {
+    context.unregisterReceiver(packageReceiver);
+    executor.shutdown();
+    sink = null;
+  }
+
+  void listen(EventSink events) {
+    sink = events;
+    executor.execute(() -> {
+      if (apps == null) {
+        apps = new HashMap<>();
+        for (final Map<String, Object> app : query(null)) {
+          apps.put((String) app.get("packageName"), app);
+        }
+      }
+      post(true, new ArrayList<>(apps.values()), new ArrayList<>());
+    });
+  }
+
+  void cancel() {
+    sink = null;
+  }
+
+  /**
+   * Re-reads the entry for one package and sends it if it changed. Runs on the executor.
+   */
+  private void refresh(String packageName) {
+    if (apps == null) {
+      // The first listen reads everything anyway.
+      return;
+    }
+
+    final List<Map<String, Object>> found = query(packageName);
+    final Map<String, Object> app = found.isEmpty() ? null : found.get(0);
+    final Map<String, Object> old = apps.get(packageName);
+    if (app == null) {
+      if (old != null) {
+        apps.remove(packageName);
+        final List<String> removed = new ArrayList<>();
+        removed.add(packageName);
+        post(false, new ArrayList<>(), removed);
+      }
+    } else if (!app.equals(old)) {
+      apps.put(packageName, app);
+      final List<Map<String, Object>> updated = new ArrayList<>();
+      updated.add(app);
+      post(false, updated, new ArrayList<>());
+    }
+  }
+
+  /**
+   * Lists launchable apps, optionally restricted to one package, one entry per package.
+   */
+  private List<Map<String, Object>> query(String packageName) {
+    final Intent intent = new Intent(Intent.ACTION_MAIN).addCategory(Intent.CATEGORY_LAUNCHER);
+    if (packageName != null) {
+      intent.setPackage(packageName);
+    }
+
+    final Map<String, Map<String, Object>> found = new HashMap<>();
+    for (final ResolveInfo resolveInfo : packageManager.queryIntentActivities(intent, 0)) {
+      final ApplicationInfo info = resolveInfo.activityInfo.applicationInfo;
+      if (found.containsKey(info.packageName)) {
+        continue;
+      }
+
+      long lastUpdateTime;
+      try {
+        lastUpdateTime = packageManager.getPackageInfo(info.packageName, 0).lastUpdateTime;
+      } catch (PackageManager.NameNotFoundException e) {
+        // Uninstalled since the query.
+        continue;
+      }
+
+      final Map<String, Object> app = new HashMap<>();
+      app.put("packageName", info.packageName);
+      app.put("label", info.loadLabel(packageManager).toString());
+      app.put("system", (info.flags & ApplicationInfo.FLAG_SYSTEM) != 0);
+      app.put("lastUpdateTime", lastUpdateTime);
+      found.put(info.packageName, app);
+    }
+    return new ArrayList<>(found.values());
+  }
+
+  private void post(boolean reset, List<Map<String, Object>> updated, List<String> removed) {
+    final Map<String, Object> change = new HashMap<>();
+    change.put("reset", reset);
+    change.put("updated", updated);
+    change.put("removed", removed);
+    mainHandler.post(() -> {
+      if (sink != null) {
+        sink.success(change);
+      }
+    });
+  }
+}
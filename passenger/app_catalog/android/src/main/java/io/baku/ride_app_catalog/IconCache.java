@@ -0,0 +1,102 @@
+package io.baku.ride_app_catalog;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * Rasterizes app icons off the main thread, once per package version and size, into raw RGBA kept
+ * in a size-bounded {@link RasterCache}.
+ */
+class IconCache {
+  private static final int MEMORY_CACHE_BYTES = 4 << 20, DISK_CACHE_BYTES = 16 << 20;
+  /**
+   * Launcher icons are 48dp, so an icon of this many pixels is drawn at mdpi.
+   */
+  private static final int MDPI_ICON_SIZE = 48;
+
+  private final PackageManager packageManager;
+  /**
+   * Confined to the executor.
+   */
+  private final RasterCache cache;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  IconCache(Context context) {
+    packageManager = context.getPackageManager();
+    cache = new RasterCache(
+        new File(context.getCacheDir(), "app_icons"), MEMORY_CACHE_BYTES, DISK_CACHE_BYTES);
+  }
+
+  void dispose() {
+    executor.shutdown();
+  }
+
+  /**
+   * Completes {@code result} with the app's icon rasterized to {@code size} pixels square, or null
+   * if the app isn't installed.
+   */
+  void get(String packageName, int size, Result result) {
+    executor.execute(() -> {
+      RasterCache.Raster icon = null;
+      try {
+        icon = load(packageName, size);
+      } catch (PackageManager.NameNotFoundException e) {
+        // Uninstalled; report it as having no icon.
+      } catch (RuntimeException e) {
+        Log.w("RideAppCatalogPlugin", "Failed to load icon for " + packageName, e);
+      }
+      final Map<String, Object> value = icon == null ? null : icon.toMap();
+      mainHandler.post(() -> result.success(value));
+    });
+  }
+
+  /**
+   * Drops cached icons of a package that changed.
+   */
+  void invalidate(String packageName) {
+    executor.execute(() -> cache.invalidate(packageName));
+  }
+
+  private RasterCache.Raster load(String packageName, int size)
+      throws PackageManager.NameNotFoundException {
+    final ApplicationInfo info = packageManager.getApplicationInfo(packageName, 0);
+    final long version = packageManager.getPackageInfo(packageName, 0).lastUpdateTime;
+    final String key = size + "|" + version;
+
+    RasterCache.Raster icon = cache.get(packageName, key);
+    if (icon == null) {
+      icon = RasterCache.Raster.render(loadDrawable(info, size), size, size);
+      cache.put(packageName, key, icon);
+    }
+    return icon;
+  }
+
+  private Drawable loadDrawable(ApplicationInfo info, int size) {
+    if (info.icon != 0) {
+      // Pick the density bucket that matches the requested size rather than the display's, so small
+      // icons don't decode oversized bitmaps and large ones aren't upscaled.
+      final int density = (size * 160 + MDPI_ICON_SIZE - 1) / MDPI_ICON_SIZE;
+      try {
+        return packageManager.getResourcesForApplication(info)
+            .getDrawableForDensity(info.icon, density, null);
+      } catch (PackageManager.NameNotFoundException | Resources.NotFoundException e) {
+        // Fall through to the default lookup.
+      }
+    }
+    return packageManager.getApplicationIcon(info);
+  }
+}
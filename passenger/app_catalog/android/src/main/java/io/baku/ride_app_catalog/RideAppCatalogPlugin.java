@@ -0,0 +1,75 @@
+package io.baku.ride_app_catalog;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugin.common.EventChannel.EventSink;
+import io.flutter.plugin.common.EventChannel.StreamHandler;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * RideAppCatalogPlugin
+ */
+public class RideAppCatalogPlugin implements FlutterPlugin, MethodCallHandler, StreamHandler {
+  private MethodChannel channel;
+  private EventChannel changes;
+  private IconCache iconCache;
+  private AppCatalog catalog;
+
+  @Override
+  public void onAttachedToEngine(@NonNull FlutterPluginBinding binding) {
+    channel = new MethodChannel(binding.getBinaryMessenger(), "ride_app_catalog");
+    channel.setMethodCallHandler(this);
+    changes = new EventChannel(binding.getBinaryMessenger(), "ride_app_catalog.changes");
+    changes.setStreamHandler(this);
+
+    final Context context = binding.getApplicationContext();
+    iconCache = new IconCache(context);
+    catalog = new AppCatalog(context, iconCache);
+  }
+
+  @Override
+  public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
+    switch (call.method) {
+      case "getIcon": {
+        final List<Object> args = call.arguments();
+        if (args == null || args.size() != 2) {
+          result.error("Argument exception", "Expected [packageName, size].", args);
+          return;
+        }
+        iconCache.get((String) args.get(0), (int) args.get(1), result);
+        break;
+      }
+      default:
+        result.notImplemented();
+    }
+  }
+
+  @Override
+  public void onListen(Object arguments, EventSink events) {
+    catalog.listen(events);
+  }
+
+  @Override
+  public void onCancel(Object arguments) {
+    catalog.cancel();
+  }
+
+  @Override
+  public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
+    channel.setMethodCallHandler(null);
+    changes.setStreamHandler(null);
+    catalog.dispose();
+    catalog = null;
+    iconCache.dispose();
+    iconCache = null;
+  }
+}
@@ -0,0 +1,161 @@
+import 'dart:async';
+import 'dart:typed_data';
+import 'dart:ui' as ui;
+
+import 'package:flutter/foundation.dart';
+import 'package:flutter/painting.dart';
+
+import 'ride_app_catalog_platform_interface.dart';
+
+/// A launchable app.
+@immutable
+class AppInfo {
+  final String packageName, label;
+  final bool system;
+
+  /// When the package was last installed or updated. Icons are cached per
+  /// version.
+  final DateTime lastUpdateTime;
+
+  const AppInfo({
+    required this.packageName,
+    required this.label,
+    this.system = false,
+    required this.lastUpdateTime,
+  });
+
+  AppInfo.fromMap(Map map)
+      : packageName = map['packageName'] as String,
+        label = map['label'] as String,
+        system = map['system'] as bool,
+        lastUpdateTime =
+            DateTime.fromMillisecondsSinceEpoch(map['lastUpdateTime'] as int);
+
+  @override
+  bool operator ==(Object other) =>
+      other is AppInfo &&
+      other.packageName == packageName &&
+      other.label == label &&
+      other.system == system &&
+      other.lastUpdateTime == lastUpdateTime;
+
+  @override
+  int get hashCode => Object.hash(packageName, label, system, lastUpdateTime);
+}
+
+/// A change to the catalog. The first change a listener receives is a [reset]
+/// holding every app.
+class AppCatalogChange {
+  /// Whether apps not in [updated] should be dropped.
+  final bool reset;
+
+  /// Apps that were added or changed.
+  final List<AppInfo> updated;
+
+  /// Package names of apps that were removed.
+  final List<String> removed;
+
+  const AppCatalogChange({
+    this.reset = false,
+    this.updated = const [],
+    this.removed = const [],
+  });
+
+  AppCatalogChange.fromMap(Map map)
+      : reset = map['reset'] as bool,
+        updated = [
+          for (final app in map['updated'] as List) AppInfo.fromMap(app as Map)
+        ],
+        removed = (map['removed'] as List).cast();
+
+  /// Applies this change to [apps], keyed by package name.
+  void applyTo(Map<String, AppInfo> apps) {
+    if (reset) {
+      apps.clear();
+    }
+    for (final packageName in removed) {
+      apps.remove(packageName);
+    }
+    for (final app in updated) {
+      apps[app.packageName] = app;
+    }
+  }
+}
+
+/// A rasterized app icon, as premultiplied RGBA pixels.
+class AppIcon {
+  final int width, height;
+  final Uint8List pixels;
+
+  const AppIcon(this.width, this.height, this.pixels);
+
+  AppIcon.fromMap(Map map)
+      : this(
+          map['width'] as int,
+          map['height'] as int,
+          map['pixels'] as Uint8List,
+        );
+
+  Future<ui.Image> toImage() {
+    final completer = Completer<ui.Image>();
+    ui.decodeImageFromPixels(
+      pixels,
+      width,
+      height,
+      ui.PixelFormat.rgba8888,
+      completer.complete,
+    );
+    return completer.future;
+  }
+}
+
+abstract class AppCatalog {
+  const AppCatalog._();
+
+  /// Changes to the catalog of launchable apps, starting with the whole
+  /// catalog. Only one listener is supported at a time.
+  static Stream<AppCatalogChange> get changes =>
+      RideAppCatalogPlatform.instance.changes;
+
+  /// Returns [packageName]'s icon rasterized to [size] pixels square, or null
+  /// if it isn't installed.
+  static Future<AppIcon?> getIcon(String packageName, int size) =>
+      RideAppCatalogPlatform.instance.getIcon(packageName, size);
+}
+
+/// Loads an app's icon from the catalog without any image encoding round trip.
+@immutable
+class AppIconImage extends ImageProvider<AppIconImage> {
+  final AppInfo app;
+
+  /// The size of the icon in physical pixels.
+  final int size;
+
+  const AppIconImage(this.app, {required this.size});
+
+  @override
+  Future<AppIconImage> obtainKey(ImageConfiguration configuration) =>
+      SynchronousFuture(this);
+
+  @override
+  ImageStreamCompleter loadImage(
+    AppIconImage key,
+    ImageDecoderCallback decode,
+  ) =>
+      OneFrameImageStreamCompleter(_load());
+
+  Future<ImageInfo> _load() async {
+    final icon = await AppCatalog.getIcon(app.packageName, size);
+    if (icon == null) {
+      throw StateError('${app.packageName} has no icon.');
+    }
+    return ImageInfo(image: await icon.toImage());
+  }
+
+  @override
+  bool operator ==(Object other) =>
+      other is AppIconImage && other.app == app && other.size == size;
+
+  @override
+  int get hashCode => Object.hash(app, size);
+}
@@ -0,0 +1,22 @@
+import 'package:flutter/services.dart';
+
+import 'ride_app_catalog.dart';
+import 'ride_app_catalog_platform_interface.dart';
+
+/// An implementation of [RideAppCatalogPlatform] that uses method channels.
+class MethodChannelRideAppCatalog extends RideAppCatalogPlatform {
+  static const methodChannel = MethodChannel('ride_app_catalog');
+  static const changeChannel = EventChannel('ride_app_catalog.changes');
+
+  @override
+  Stream<AppCatalogChange> get changes => changeChannel
+      .receiveBroadcastStream()
+      .map((event) => AppCatalogChange.fromMap(event as Map));
+
+  @override
+  Future<AppIcon?> getIcon(String packageName, int size) async {
+    final icon =
+        await methodChannel.invokeMapMethod('getIcon', [packageName, size]);
+    return icon == null ? null : AppIcon.fromMap(icon);
+  }
+}
@@ -0,0 +1,29 @@
+import 'package:plugin_platform_interface/plugin_platform_interface.dart';
+
+import 'ride_app_catalog.dart';
+import 'ride_app_catalog_method_channel.dart';
+
+abstract class RideAppCatalogPlatform extends PlatformInterface {
+  /// Constructs a RideAppCatalogPlatform.
+  RideAppCatalogPlatform() : super(token: _token);
+
+  static final Object _token = Object();
+
+  static RideAppCatalogPlatform _instance = MethodChannelRideAppCatalog();
+
+  /// The default instance of [RideAppCatalogPlatform] to use.
+  ///
+  /// Defaults to [MethodChannelRideAppCatalog].
+  static RideAppCatalogPlatform get instance => _instance;
+
+  /// Platform-specific implementations should set this with their own
+  /// platform-specific class that extends [RideAppCatalogPlatform] when
+  /// they register themselves.
+  static set instance(RideAppCatalogPlatform instance) {
+    PlatformInterface.verifyToken(instance, _token);
+    _instance = instance;
+  }
+
+  Stream<AppCatalogChange> get changes;
+  Future<AppIcon?> getIcon(String packageName, int size);
+}
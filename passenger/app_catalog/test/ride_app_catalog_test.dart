@@ -0,0 +1,55 @@
+import 'dart:async';
+
+import 'package:flutter_test/flutter_test.dart';
+import 'package:plugin_platform_interface/plugin_platform_interface.dart';
+import 'package:ride_app_catalog/ride_app_catalog.dart';
+import 'package:ride_app_catalog/ride_app_catalog_method_channel.dart';
+import 'package:ride_app_catalog/ride_app_catalog_platform_interface.dart';
+
+class FakeRideAppCatalogPlatform extends Fake
+    with MockPlatformInterfaceMixin
+    implements RideAppCatalogPlatform {
+  final controller = StreamController<AppCatalogChange>();
+
+  @override
+  Stream<AppCatalogChange> get changes => controller.stream;
+}
+
+AppInfo app(String packageName, [int version = 0]) => AppInfo(
+      packageName: packageName,
+      label: packageName,
+      lastUpdateTime: DateTime.fromMillisecondsSinceEpoch(version),
+    );
+
+void main() {
+  final RideAppCatalogPlatform initialPlatform =
+      RideAppCatalogPlatform.instance;
+
+  test('$MethodChannelRideAppCatalog is the default instance', () {
+    expect(initialPlatform, isInstanceOf<MethodChannelRideAppCatalog>());
+  });
+
+  test('changes apply incrementally', () async {
+    final platform =
+        RideAppCatalogPlatform.instance = FakeRideAppCatalogPlatform();
+    final apps = <String, AppInfo>{};
+    final applied = AppCatalog.changes.map((change) => change.applyTo(apps));
+    final iterator = StreamIterator(applied);
+
+    platform.controller
+        .add(AppCatalogChange(reset: true, updated: [app('a'), app('b')]));
+    await iterator.moveNext();
+    expect(apps.keys, unorderedEquals(['a', 'b']));
+
+    platform.controller.add(
+        AppCatalogChange(updated: [app('b', 1), app('c')], removed: ['a']));
+    await iterator.moveNext();
+    expect(apps.values, unorderedEquals([app('b', 1), app('c')]));
+
+    platform.controller.add(AppCatalogChange(reset: true, updated: [app('d')]));
+    await iterator.moveNext();
+    expect(apps.values, [app('d')]);
+
+    await iterator.cancel();
+  });
+}
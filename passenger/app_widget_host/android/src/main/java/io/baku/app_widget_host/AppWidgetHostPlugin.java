@@ -2,16 +2,28 @@ package io.baku.app_widget_host;
 
 import android.app.Activity;
 import android.appwidget.AppWidgetHost;
+import android.appwidget.AppWidgetHostView;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProviderInfo;
+import android.content.ComponentCallbacks2;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
@@ -34,6 +46,10 @@ public class AppWidgetHostPlugin implements
       APP_WIDGET_HOST_ID = 0,
       REQUEST_BIND_APPWIDGET = 0x10,
       REQUEST_CONFIGURE_APPWIDGET = 0x11;
+  private static final String
+      RESTORE_VALID = "valid",
+      RESTORE_REBOUND = "rebound",
+      RESTORE_UNBOUND = "unbound";
   // TODO: Make request range configurable to handle conflicts with other plugins.
 
   private MethodChannel channel;
@@ -41,6 +57,32 @@ public class AppWidgetHostPlugin implements
   private ActivityPluginBinding activityBinding;
   private AppWidgetManager appWidgetManager;
   private AppWidgetHost appWidgetHost;
+  private ProviderCatalog providerCatalog;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  /**
+   * Runs app widget service calls that would otherwise block the main thread.
+   */
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private final AppWidgetHostViewCache viewCache = new AppWidgetHostViewCache();
+  /**
+   * Minimum update intervals set from Dart, applied to views as they are created.
+   */
+  private final Map<Integer, Long> minUpdateIntervals = new HashMap<>();
+  private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+    @Override
+    public void onTrimMemory(int level) {
+      viewCache.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+      viewCache.trimTo(0);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+  };
 
   private Result activityResult;
 
@@ -50,14 +92,27 @@ public class AppWidgetHostPlugin implements
     channel.setMethodCallHandler(this);
 
     context = binding.getApplicationContext();
-    appWidgetHost = new AppWidgetHost(context, APP_WIDGET_HOST_ID);
+    appWidgetHost = new AppWidgetHost(context, APP_WIDGET_HOST_ID) {
+      @Override
+      protected AppWidgetHostView onCreateView(
+          Context context, int appWidgetId, AppWidgetProviderInfo appWidget) {
+        final ThrottledAppWidgetHostView view = new ThrottledAppWidgetHostView(context);
+        final Long minUpdateIntervalMillis = minUpdateIntervals.get(appWidgetId);
+        if (minUpdateIntervalMillis != null) {
+          view.setMinUpdateInterval(minUpdateIntervalMillis);
+        }
+        return view;
+      }
+    };
     appWidgetManager = AppWidgetManager.getInstance(context);
+    providerCatalog = new ProviderCatalog(context, appWidgetManager);
 
     binding
         .getPlatformViewRegistry()
         .registerViewFactory(
             FlutterAppWidgetHostView.PLATFORM_VIEW_TYPE,
-            new FlutterAppWidgetHostView.Factory(appWidgetHost, appWidgetManager));
+            new FlutterAppWidgetHostView.Factory(appWidgetHost, appWidgetManager, viewCache));
+    context.registerComponentCallbacks(memoryCallbacks);
   }
 
   @Override
@@ -131,16 +186,150 @@ public class AppWidgetHostPlugin implements
         result.success(appWidgetManager.getAppWidgetInfo(appWidgetId) != null);
         break;
       }
+      case "restoreAll": {
+        restoreAll(call.arguments(), result);
+        break;
+      }
       case "deleteAppWidgetId": {
-        appWidgetHost.deleteAppWidgetId(call.arguments());
+        final int appWidgetId = call.arguments();
+        viewCache.remove(appWidgetId);
+        minUpdateIntervals.remove(appWidgetId);
+        appWidgetHost.deleteAppWidgetId(appWidgetId);
+        result.success(null);
+        break;
+      }
+      case "getInstalledProviders": {
+        providerCatalog.getInstalledProviders(result);
+        break;
+      }
+      case "getProviderImage": {
+        providerCatalog.getProviderImage(
+            new ComponentName(
+                call.<String>argument("packageName"),
+                call.argument("className")),
+            call.argument("kind"),
+            call.argument("width"),
+            call.argument("height"),
+            result);
+        break;
+      }
+      case "setViewCacheSize": {
+        viewCache.setMaxSize(call.arguments());
+        result.success(null);
+        break;
+      }
+      case "setAppWidgetVisible": {
+        final List<Object> args = call.arguments();
+        final AppWidgetHostView view = viewCache.getActive((int) args.get(0));
+        if (view instanceof ThrottledAppWidgetHostView) {
+          ((ThrottledAppWidgetHostView) view).setVisible((boolean) args.get(1));
+        }
         result.success(null);
         break;
       }
+      case "setMinUpdateInterval": {
+        final List<Object> args = call.arguments();
+        final int appWidgetId = (int) args.get(0);
+        final long minUpdateIntervalMillis = ((Number) args.get(1)).longValue();
+        if (minUpdateIntervalMillis > 0) {
+          minUpdateIntervals.put(appWidgetId, minUpdateIntervalMillis);
+        } else {
+          minUpdateIntervals.remove(appWidgetId);
+        }
+        final AppWidgetHostView view = viewCache.getAll().get(appWidgetId);
+        if (view instanceof ThrottledAppWidgetHostView) {
+          ((ThrottledAppWidgetHostView) view).setMinUpdateInterval(minUpdateIntervalMillis);
+        }
+        result.success(null);
+        break;
+      }
+      case "getUpdateStats": {
+        final Map<Integer, Map<String, Object>> stats = new HashMap<>();
+        for (final Map.Entry<Integer, AppWidgetHostView> entry : viewCache.getAll().entrySet()) {
+          if (entry.getValue() instanceof ThrottledAppWidgetHostView) {
+            stats.put(
+                entry.getKey(),
+                ((ThrottledAppWidgetHostView) entry.getValue()).getUpdateStats());
+          }
+        }
+        result.success(stats);
+        break;
+      }
       default:
         result.notImplemented();
     }
   }
 
+  /**
+   * Checks a batch of persisted app widgets off the main thread, rebinding any that lost their
+   * binding, and then creates and caches views for the bound ones so that their platform views
+   * come up without inflating. Completes {@code result} with a status for each app widget ID.
+   */
+  private void restoreAll(List<Map<String, Object>> widgets, Result result) {
+    executor.execute(() -> {
+      final Map<Integer, String> statuses = new HashMap<>();
+      final List<Integer> bound = new ArrayList<>();
+      try {
+        for (final Map<String, Object> widget : widgets) {
+          final int appWidgetId = (int) widget.get("appWidgetId");
+          String status;
+          if (appWidgetManager.getAppWidgetInfo(appWidgetId) != null) {
+            status = RESTORE_VALID;
+          } else {
+            try {
+              status = appWidgetManager.bindAppWidgetIdIfAllowed(
+                  appWidgetId,
+                  new ComponentName(
+                      (String) widget.get("packageName"),
+                      (String) widget.get("className"))) ? RESTORE_REBOUND : RESTORE_UNBOUND;
+            } catch (IllegalArgumentException e) {
+              // The ID is no longer allocated to this host.
+              status = RESTORE_UNBOUND;
+            }
+          }
+          statuses.put(appWidgetId, status);
+          if (!status.equals(RESTORE_UNBOUND)) {
+            bound.add(appWidgetId);
+          }
+        }
+      } catch (RuntimeException e) {
+        // For example, a dead system server. Fail the batch so that Dart can check each app widget
+        // on its own rather than waiting forever.
+        Log.w("AppWidgetHostPlugin", "Failed to restore app widgets", e);
+        mainHandler.post(() -> result.error("failed", e.toString(), null));
+        return;
+      }
+
+      mainHandler.post(() -> {
+        if (activityBinding != null) {
+          for (final int appWidgetId : bound) {
+            prewarmView(appWidgetId);
+          }
+        }
+        result.success(statuses);
+      });
+    });
+  }
+
+  private void prewarmView(int appWidgetId) {
+    if (viewCache.contains(appWidgetId)) {
+      return;
+    }
+    final AppWidgetProviderInfo info = appWidgetManager.getAppWidgetInfo(appWidgetId);
+    if (info == null) {
+      return;
+    }
+    try {
+      final AppWidgetHostView view =
+          appWidgetHost.createView(activityBinding.getActivity(), appWidgetId, info);
+      view.setPadding(0, 0, 0, 0);
+      viewCache.putIdle(appWidgetId, view);
+    } catch (RuntimeException e) {
+      // The platform view will try again when it's created.
+      Log.w("AppWidgetHostPlugin", "Failed to create view for app widget " + appWidgetId, e);
+    }
+  }
+
   @Override
   public boolean onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
     switch (requestCode) {
@@ -175,12 +364,19 @@ public class AppWidgetHostPlugin implements
     }
 
     appWidgetHost.stopListening();
+    // Cached views hold on to the activity context.
+    viewCache.clear();
     activityBinding.removeActivityResultListener(this);
     activityBinding = null;
   }
 
   @Override
   public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
+    context.unregisterComponentCallbacks(memoryCallbacks);
+    providerCatalog.dispose();
+    executor.shutdown();
+    providerCatalog = null;
+    viewCache.clear();
     appWidgetHost.deleteHost();
     appWidgetHost = null;
     channel.setMethodCallHandler(null);
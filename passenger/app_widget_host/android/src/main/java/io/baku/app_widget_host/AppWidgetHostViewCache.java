@@ -0,0 +1,160 @@
+package io.baku.app_widget_host;
+
+import android.appwidget.AppWidgetHostView;
+import android.content.ComponentCallbacks2;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the views of recently disposed platform views alive so that recreating a platform view for
+ * the same app widget, for example when scrolling it back into view, doesn't re-inflate its remote
+ * views from scratch.
+ * <p>
+ * Idle views stay registered with the {@link android.appwidget.AppWidgetHost}, so they keep
+ * receiving updates. Must be used from the main thread.
+ */
+class AppWidgetHostViewCache {
+  static final int DEFAULT_MAX_SIZE = 8;
+
+  private int maxSize = DEFAULT_MAX_SIZE;
+  /**
+   * Views currently shown by a platform view.
+   */
+  private final Map<Integer, AppWidgetHostView> active = new HashMap<>();
+  /**
+   * Idle views, in least recently used order.
+   */
+  private final LinkedHashMap<Integer, AppWidgetHostView> idle =
+      new LinkedHashMap<>(16, .75f, true);
+
+  /**
+   * Takes the idle view for {@code appWidgetId}, if any, and marks it active.
+   */
+  AppWidgetHostView take(int appWidgetId) {
+    final AppWidgetHostView view = idle.remove(appWidgetId);
+    if (view != null) {
+      active.put(appWidgetId, view);
+      setVisible(view, true);
+    }
+    return view;
+  }
+
+  void putActive(int appWidgetId, AppWidgetHostView view) {
+    active.put(appWidgetId, view);
+  }
+
+  /**
+   * Detaches a view whose platform view has been disposed and keeps it for reuse.
+   */
+  void release(int appWidgetId, AppWidgetHostView view) {
+    final ViewParent parent = view.getParent();
+    if (parent instanceof ViewGroup) {
+      ((ViewGroup) parent).removeView(view);
+    }
+
+    // If a newer view has been created for the same app widget, the host only updates that one, so
+    // this one would go stale.
+    if (active.get(appWidgetId) != view) {
+      return;
+    }
+    active.remove(appWidgetId);
+    // Idle views are offscreen, so hold their updates until they're shown again.
+    setVisible(view, false);
+
+    if (maxSize > 0) {
+      idle.put(appWidgetId, view);
+      trimTo(maxSize);
+    }
+  }
+
+  /**
+   * Adds a view created ahead of any platform view, unless the app widget already has a view.
+   */
+  void putIdle(int appWidgetId, AppWidgetHostView view) {
+    if (maxSize == 0 || active.containsKey(appWidgetId) || idle.containsKey(appWidgetId)) {
+      return;
+    }
+    setVisible(view, false);
+    idle.put(appWidgetId, view);
+    trimTo(maxSize);
+  }
+
+  /**
+   * Returns whether the app widget has an active or idle view.
+   */
+  boolean contains(int appWidgetId) {
+    return active.containsKey(appWidgetId) || idle.containsKey(appWidgetId);
+  }
+
+  private static void setVisible(AppWidgetHostView view, boolean isVisible) {
+    if (view instanceof ThrottledAppWidgetHostView) {
+      ((ThrottledAppWidgetHostView) view).setVisible(isVisible);
+    }
+  }
+
+  /**
+   * Returns the active view for {@code appWidgetId}, if any.
+   */
+  AppWidgetHostView getActive(int appWidgetId) {
+    return active.get(appWidgetId);
+  }
+
+  /**
+   * Returns all active and idle views by app widget ID.
+   */
+  Map<Integer, AppWidgetHostView> getAll() {
+    final Map<Integer, AppWidgetHostView> all = new HashMap<>(idle);
+    all.putAll(active);
+    return all;
+  }
+
+  void remove(int appWidgetId) {
+    idle.remove(appWidgetId);
+  }
+
+  void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+    trimTo(maxSize);
+  }
+
+  void trimTo(int size) {
+    final Iterator<AppWidgetHostView> it = idle.values().iterator();
+    while (idle.size() > size && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  /**
+   * Trims idle views in response to {@link ComponentCallbacks2#onTrimMemory}.
+   */
+  void onTrimMemory(int level) {
+    if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      // Keep views around for when the user comes back.
+      return;
+    }
+    if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+      trimTo(size() / 2);
+    } else {
+      trimTo(0);
+    }
+  }
+
+  int size() {
+    return idle.size();
+  }
+
+  /**
+   * Drops all idle views, and stops views that are currently active from being kept when they are
+   * released.
+   */
+  void clear() {
+    idle.clear();
+    active.clear();
+  }
+}
@@ -19,11 +19,16 @@ public class FlutterAppWidgetHostView implements PlatformView {
   public static class Factory extends PlatformViewFactory {
     private final AppWidgetHost appWidgetHost;
     private final AppWidgetManager appWidgetManager;
+    private final AppWidgetHostViewCache cache;
 
-    public Factory(AppWidgetHost appWidgetHost, AppWidgetManager appWidgetManager) {
+    Factory(
+        AppWidgetHost appWidgetHost,
+        AppWidgetManager appWidgetManager,
+        AppWidgetHostViewCache cache) {
       super(StandardMessageCodec.INSTANCE);
       this.appWidgetHost = appWidgetHost;
       this.appWidgetManager = appWidgetManager;
+      this.cache = cache;
     }
 
     @NonNull
@@ -34,16 +39,25 @@ public class FlutterAppWidgetHostView implements PlatformView {
       }
 
       final int appWidgetId = (int)args;
-      final AppWidgetHostView view = appWidgetHost.createView(
-          context, appWidgetId, appWidgetManager.getAppWidgetInfo(appWidgetId));
-      view.setPadding(0, 0, 0, 0);
-      return new FlutterAppWidgetHostView(view);
+      AppWidgetHostView view = cache.take(appWidgetId);
+      if (view == null) {
+        view = appWidgetHost.createView(
+            context, appWidgetId, appWidgetManager.getAppWidgetInfo(appWidgetId));
+        view.setPadding(0, 0, 0, 0);
+        cache.putActive(appWidgetId, view);
+      }
+      return new FlutterAppWidgetHostView(cache, appWidgetId, view);
     }
   }
 
+  private final AppWidgetHostViewCache cache;
+  private final int appWidgetId;
   private AppWidgetHostView view;
 
-  FlutterAppWidgetHostView(@NonNull AppWidgetHostView view) {
+  FlutterAppWidgetHostView(
+      AppWidgetHostViewCache cache, int appWidgetId, @NonNull AppWidgetHostView view) {
+    this.cache = cache;
+    this.appWidgetId = appWidgetId;
     this.view = view;
   }
 
@@ -55,6 +69,7 @@ public class FlutterAppWidgetHostView implements PlatformView {
 
   @Override
   public void dispose() {
+    cache.release(appWidgetId, view);
     view = null;
   }
 }
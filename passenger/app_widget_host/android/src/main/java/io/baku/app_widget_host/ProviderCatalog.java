@@ -0,0 +1,214 @@
+package io.baku.app_widget_host;
+
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProviderInfo;
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * Lists installed app widget providers and renders their preview images and icons off the main
+ * thread. Rendered images are kept as raw RGBA in a {@link RasterCache}, keyed by the provider's
+ * package version so that updates miss the cache, and dropped when their package changes.
+ */
+class ProviderCatalog {
+  static final String KIND_PREVIEW = "preview", KIND_ICON = "icon";
+
+  private static final int MEMORY_CACHE_BYTES = 8 << 20, DISK_CACHE_BYTES = 32 << 20;
+
+  private final Context context;
+  private final AppWidgetManager appWidgetManager;
+  /**
+   * Confined to the executor.
+   */
+  private final RasterCache cache;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  /**
+   * Provider info from the last listing, so that loading images doesn't list providers again.
+   * Confined to the executor.
+   */
+  private final Map<ComponentName, AppWidgetProviderInfo> providerInfos = new HashMap<>();
+
+  private final BroadcastReceiver packageReceiver = new BroadcastReceiver() {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+      final Uri data = intent.getData();
+      if (data != null) {
+        invalidate(data.getSchemeSpecificPart());
+      }
+    }
+  };
+
+  ProviderCatalog(Context context, AppWidgetManager appWidgetManager) {
+    this.context = context;
+    this.appWidgetManager = appWidgetManager;
+    cache = new RasterCache(
+        new File(context.getCacheDir(), "app_widget_previews"), MEMORY_CACHE_BYTES, DISK_CACHE_BYTES);
+
+    final IntentFilter filter = new IntentFilter();
+    filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+    filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+    filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+    filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+    filter.addDataScheme("package");
+    context.registerReceiver(packageReceiver, filter);
+  }
+
+  void dispose() {
+    context.unregisterReceiver(packageReceiver);
+    executor.shutdown();
+  }
+
+  /**
+   * Completes {@code result} with the metadata of every installed provider.
+   */
+  void getInstalledProviders(Result result) {
+    executor.execute(() -> {
+      final List<Map<String, Object>> providers;
+      try {
+        providers = listProviders();
+      } catch (RuntimeException e) {
+        // Listing is an IPC that can fail, for example if the system server is restarting, and
+        // labels come from other packages.
+        Log.w("AppWidgetHostPlugin", "Failed to list providers", e);
+        mainHandler.post(() -> result.error("failed", e.toString(), null));
+        return;
+      }
+      mainHandler.post(() -> result.success(providers));
+    });
+  }
+
+  private List<Map<String, Object>> listProviders() {
+    final PackageManager packageManager = context.getPackageManager();
+    final List<Map<String, Object>> providers = new ArrayList<>();
+    providerInfos.clear();
+    for (final AppWidgetProviderInfo info : appWidgetManager.getInstalledProviders()) {
+      providerInfos.put(info.provider, info);
+
+      final Map<String, Object> provider = new HashMap<>();
+      provider.put("packageName", info.provider.getPackageName());
+      provider.put("className", info.provider.getClassName());
+      provider.put("label", info.loadLabel(packageManager));
+      provider.put("minWidth", info.minWidth);
+      provider.put("minHeight", info.minHeight);
+      provider.put("minResizeWidth", info.minResizeWidth);
+      provider.put("minResizeHeight", info.minResizeHeight);
+      provider.put("resizeMode", info.resizeMode);
+      provider.put("widgetCategory", info.widgetCategory);
+      provider.put("configurable", info.configure != null);
+      provider.put("hasPreviewImage", info.previewImage != 0);
+      providers.add(provider);
+    }
+    return providers;
+  }
+
+  /**
+   * Completes {@code result} with the provider's preview image or icon, scaled to fit within the
+   * given size in pixels, or null if it has none.
+   */
+  void getProviderImage(ComponentName provider, String kind, int width, int height, Result result) {
+    executor.execute(() -> {
+      RasterCache.Raster image = null;
+      try {
+        image = loadImage(provider, kind, width, height);
+      } catch (PackageManager.NameNotFoundException e) {
+        // The provider was uninstalled; report it as having no image.
+      } catch (RuntimeException e) {
+        // Drawables from other packages can fail to load in all sorts of ways.
+        Log.w("AppWidgetHostPlugin", "Failed to load " + kind + " for " + provider, e);
+      }
+      final Map<String, Object> value = image == null ? null : image.toMap();
+      mainHandler.post(() -> result.success(value));
+    });
+  }
+
+  private RasterCache.Raster loadImage(ComponentName provider, String kind, int width, int height)
+      throws PackageManager.NameNotFoundException {
+    final long version = context.getPackageManager()
+        .getPackageInfo(provider.getPackageName(), 0).lastUpdateTime;
+    final String key = provider.flattenToShortString() + "|" + kind + "|" + width + "x" + height +
+        "|" + version;
+
+    RasterCache.Raster image = cache.get(provider.getPackageName(), key);
+    if (image == null) {
+      final Drawable drawable = loadDrawable(provider, kind);
+      if (drawable == null) {
+        return null;
+      }
+      image = render(drawable, width, height);
+      cache.put(provider.getPackageName(), key, image);
+    }
+    return image;
+  }
+
+  private Drawable loadDrawable(ComponentName provider, String kind) {
+    if (!providerInfos.containsKey(provider)) {
+      for (final AppWidgetProviderInfo info : appWidgetManager.getInstalledProviders()) {
+        providerInfos.put(info.provider, info);
+      }
+    }
+    final AppWidgetProviderInfo info = providerInfos.get(provider);
+    if (info == null) {
+      return null;
+    }
+
+    final int density = context.getResources().getDisplayMetrics().densityDpi;
+    switch (kind) {
+      case KIND_PREVIEW:
+        return info.previewImage == 0 ? null : info.loadPreviewImage(context, density);
+      case KIND_ICON:
+        return info.loadIcon(context, density);
+      default:
+        throw new IllegalArgumentException("Unknown image kind " + kind);
+    }
+  }
+
+  /**
+   * Renders {@code drawable} scaled to fit within the given size, keeping its aspect ratio.
+   */
+  private static RasterCache.Raster render(Drawable drawable, int maxWidth, int maxHeight) {
+    final int intrinsicWidth = drawable.getIntrinsicWidth(),
+        intrinsicHeight = drawable.getIntrinsicHeight();
+    int width = maxWidth, height = maxHeight;
+    if (intrinsicWidth > 0 && intrinsicHeight > 0) {
+      final float scale = Math.min(
+          (float) maxWidth / intrinsicWidth, (float) maxHeight / intrinsicHeight);
+      width = Math.max(1, Math.round(intrinsicWidth * scale));
+      height = Math.max(1, Math.round(intrinsicHeight * scale));
+    }
+    return RasterCache.Raster.render(drawable, width, height);
+  }
+
+  private void invalidate(String packageName) {
+    executor.execute(() -> {
+      final Iterator<ComponentName> it = providerInfos.keySet().iterator();
+      while (it.hasNext()) {
+        if (it.next().getPackageName().equals(packageName)) {
+          it.remove();
+        }
+      }
+      cache.invalidate(packageName);
+    });
+  }
+}
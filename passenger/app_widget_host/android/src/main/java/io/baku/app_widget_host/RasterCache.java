@@ -0,0 +1,225 @@
+package io.baku.app_widget_host;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A memory and disk cache of rasterized drawables as raw RGBA, for handing images from other
+ * packages to Dart without re-encoding them. Both tiers are bounded in bytes and evict least
+ * recently used entries.
+ * <p>
+ * Entries are grouped, usually by package, so that they can be dropped together when the package
+ * changes. Apart from construction, must be confined to a single background thread.
+ */
+class RasterCache {
+  static class Raster {
+    final int width, height;
+    /**
+     * Premultiplied RGBA, row-major with no padding.
+     */
+    final byte[] pixels;
+
+    Raster(int width, int height, byte[] pixels) {
+      this.width = width;
+      this.height = height;
+      this.pixels = pixels;
+    }
+
+    /**
+     * Draws {@code drawable} stretched to the given size in pixels.
+     */
+    static Raster render(Drawable drawable, int width, int height) {
+      final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+      drawable.setBounds(0, 0, width, height);
+      drawable.draw(new Canvas(bitmap));
+
+      // ARGB_8888 is stored as RGBA bytes.
+      final ByteBuffer pixels = ByteBuffer.allocate(bitmap.getByteCount());
+      bitmap.copyPixelsToBuffer(pixels);
+      bitmap.recycle();
+      return new Raster(width, height, pixels.array());
+    }
+
+    Map<String, Object> toMap() {
+      final Map<String, Object> map = new HashMap<>();
+      map.put("width", width);
+      map.put("height", height);
+      map.put("pixels", pixels);
+      return map;
+    }
+  }
+
+  private final File dir;
+  private final long maxDiskBytes;
+  /**
+   * Bytes on disk, or -1 until first counted.
+   */
+  private long diskBytes = -1;
+
+  private final LruCache<String, Raster> memoryCache;
+
+  /**
+   * @param dir holds one subdirectory per group. Nothing else should be written there.
+   */
+  RasterCache(File dir, int maxMemoryBytes, long maxDiskBytes) {
+    this.dir = dir;
+    this.maxDiskBytes = maxDiskBytes;
+    memoryCache = new LruCache<String, Raster>(maxMemoryBytes) {
+      @Override
+      protected int sizeOf(String key, Raster value) {
+        return value.pixels.length;
+      }
+    };
+  }
+
+  private static String memoryKey(String group, String key) {
+    return group + "|" + key;
+  }
+
+  private File file(String group, String key) {
+    return new File(new File(dir, group), Integer.toHexString(key.hashCode()));
+  }
+
+  /**
+   * Returns the cached raster, or null on a miss. {@code key} should change whenever the image
+   * would, for example by including the package version.
+   */
+  Raster get(String group, String key) {
+    final String memoryKey = memoryKey(group, key);
+    Raster raster = memoryCache.get(memoryKey);
+    if (raster == null) {
+      raster = readFromDisk(file(group, key), key);
+      if (raster != null) {
+        memoryCache.put(memoryKey, raster);
+      }
+    }
+    return raster;
+  }
+
+  void put(String group, String key, Raster raster) {
+    memoryCache.put(memoryKey(group, key), raster);
+    writeToDisk(file(group, key), key, raster);
+  }
+
+  /**
+   * Drops every entry in {@code group}.
+   */
+  void invalidate(String group) {
+    final String prefix = group + "|";
+    for (final String key : memoryCache.snapshot().keySet()) {
+      if (key.startsWith(prefix)) {
+        memoryCache.remove(key);
+      }
+    }
+
+    final File[] files = new File(dir, group).listFiles();
+    if (files != null) {
+      for (final File file : files) {
+        final long length = file.length();
+        if (file.delete() && diskBytes >= 0) {
+          diskBytes -= length;
+        }
+      }
+    }
+  }
+
+  private static Raster readFromDisk(File file, String key) {
+    if (!file.exists()) {
+      return null;
+    }
+    try (final DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+      if (!in.readUTF().equals(key)) {
+        // Hash collision.
+        return null;
+      }
+      final int width = in.readInt(), height = in.readInt();
+      final byte[] pixels = new byte[width * height * 4];
+      in.readFully(pixels);
+      // Keep recently used entries when trimming.
+      file.setLastModified(System.currentTimeMillis());
+      return new Raster(width, height, pixels);
+    } catch (IOException e) {
+      file.delete();
+      return null;
+    }
+  }
+
+  private void writeToDisk(File file, String key, Raster raster) {
+    final File parent = file.getParentFile();
+    if (!parent.isDirectory() && !parent.mkdirs()) {
+      return;
+    }
+    final long replacedBytes = file.length();
+    // Write to a temporary file first so that readers never see a partial image.
+    final File temp = new File(parent, file.getName() + ".tmp");
+    try (final DataOutputStream out = new DataOutputStream(new FileOutputStream(temp))) {
+      out.writeUTF(key);
+      out.writeInt(raster.width);
+      out.writeInt(raster.height);
+      out.write(raster.pixels);
+    } catch (IOException e) {
+      temp.delete();
+      return;
+    }
+    if (!temp.renameTo(file)) {
+      temp.delete();
+      return;
+    }
+
+    if (diskBytes < 0) {
+      diskBytes = 0;
+      for (final File cached : listDiskCache()) {
+        diskBytes += cached.length();
+      }
+    } else {
+      diskBytes += file.length() - replacedBytes;
+    }
+    if (diskBytes > maxDiskBytes) {
+      trimDiskCache(maxDiskBytes * 3 / 4);
+    }
+  }
+
+  private List<File> listDiskCache() {
+    final List<File> files = new ArrayList<>();
+    final File[] groups = dir.listFiles();
+    if (groups != null) {
+      for (final File group : groups) {
+        final File[] children = group.listFiles();
+        if (children != null) {
+          files.addAll(Arrays.asList(children));
+        }
+      }
+    }
+    return files;
+  }
+
+  private void trimDiskCache(long targetBytes) {
+    final List<File> files = listDiskCache();
+    Collections.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+    for (final File file : files) {
+      if (diskBytes <= targetBytes) {
+        break;
+      }
+      final long length = file.length();
+      if (file.delete()) {
+        diskBytes -= length;
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package io.baku.app_widget_host;
+
+import android.appwidget.AppWidgetHostView;
+import android.content.Context;
+import android.os.SystemClock;
+import android.widget.RemoteViews;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An {@link AppWidgetHostView} that holds back {@link RemoteViews} updates while it is not visible
+ * and, optionally, limits how often updates are applied while it is. Held updates are coalesced so
+ * that only the latest is applied, once the view becomes visible or the interval elapses.
+ * <p>
+ * Full and partial updates both arrive here as the widget's complete, merged remote views, so
+ * dropping intermediate ones loses nothing.
+ */
+class ThrottledAppWidgetHostView extends AppWidgetHostView {
+  private boolean isVisible = true;
+  private long minUpdateIntervalMillis;
+
+  private RemoteViews pendingUpdate;
+  private boolean hasPendingUpdate;
+  private long lastAppliedMillis;
+
+  private long receivedCount, appliedCount;
+  private final long createdAtMillis = SystemClock.uptimeMillis();
+
+  private final Runnable applyPendingUpdate = this::applyPendingUpdate;
+
+  ThrottledAppWidgetHostView(Context context) {
+    super(context);
+  }
+
+  @Override
+  public void updateAppWidget(RemoteViews remoteViews) {
+    ++receivedCount;
+    pendingUpdate = remoteViews;
+    hasPendingUpdate = true;
+    if (!isVisible) {
+      return;
+    }
+
+    final long delay = lastAppliedMillis + minUpdateIntervalMillis - SystemClock.uptimeMillis();
+    if (delay <= 0) {
+      applyPendingUpdate();
+    } else {
+      removeCallbacks(applyPendingUpdate);
+      postDelayed(applyPendingUpdate, delay);
+    }
+  }
+
+  void setVisible(boolean isVisible) {
+    if (this.isVisible == isVisible) {
+      return;
+    }
+    this.isVisible = isVisible;
+    if (isVisible) {
+      applyPendingUpdate();
+    } else {
+      removeCallbacks(applyPendingUpdate);
+    }
+  }
+
+  /**
+   * Sets the minimum time between applied updates while visible, or 0 for no limit.
+   */
+  void setMinUpdateInterval(long minUpdateIntervalMillis) {
+    this.minUpdateIntervalMillis = minUpdateIntervalMillis;
+  }
+
+  private void applyPendingUpdate() {
+    if (!hasPendingUpdate) {
+      return;
+    }
+    final RemoteViews remoteViews = pendingUpdate;
+    pendingUpdate = null;
+    hasPendingUpdate = false;
+    lastAppliedMillis = SystemClock.uptimeMillis();
+    ++appliedCount;
+    apply(remoteViews);
+  }
+
+  /**
+   * Applies an update that has made it through throttling. Overridden in tests.
+   */
+  void apply(RemoteViews remoteViews) {
+    super.updateAppWidget(remoteViews);
+  }
+
+  Map<String, Object> getUpdateStats() {
+    final Map<String, Object> stats = new HashMap<>();
+    stats.put("received", receivedCount);
+    stats.put("applied", appliedCount);
+    stats.put("elapsedMillis", SystemClock.uptimeMillis() - createdAtMillis);
+    stats.put("visible", isVisible);
+    return stats;
+  }
+}
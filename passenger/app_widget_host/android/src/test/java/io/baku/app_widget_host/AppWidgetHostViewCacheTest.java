@@ -0,0 +1,201 @@
+package io.baku.app_widget_host;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.appwidget.AppWidgetHost;
+import android.appwidget.AppWidgetHostView;
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import io.flutter.plugin.platform.PlatformView;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AppWidgetHostViewCacheTest {
+  private AppWidgetHostViewCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new AppWidgetHostViewCache();
+  }
+
+  /**
+   * Adds an idle view the way a disposed platform view would.
+   */
+  private AppWidgetHostView release(int appWidgetId) {
+    final AppWidgetHostView view = mock(AppWidgetHostView.class);
+    cache.putActive(appWidgetId, view);
+    cache.release(appWidgetId, view);
+    return view;
+  }
+
+  @Test
+  public void release_keepsViewForReuse() {
+    final AppWidgetHostView view = release(1);
+
+    assertEquals(1, cache.size());
+    assertSame(view, cache.take(1));
+    assertEquals(0, cache.size());
+    assertSame(view, cache.getActive(1));
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    cache.setMaxSize(3);
+    release(1);
+    release(2);
+    release(3);
+
+    // Reusing 1 makes 2 the least recently used.
+    cache.release(1, cache.take(1));
+    release(4);
+
+    assertEquals(3, cache.size());
+    assertTrue(cache.contains(1));
+    assertFalse(cache.contains(2));
+    assertTrue(cache.contains(3));
+    assertTrue(cache.contains(4));
+  }
+
+  @Test
+  public void release_supersededView_isDropped() {
+    final AppWidgetHostView stale = mock(AppWidgetHostView.class),
+        current = mock(AppWidgetHostView.class);
+    cache.putActive(1, stale);
+    cache.putActive(1, current);
+
+    cache.release(1, stale);
+
+    assertEquals(0, cache.size());
+    assertSame(current, cache.getActive(1));
+
+    cache.release(1, current);
+    assertSame(current, cache.take(1));
+  }
+
+  @Test
+  public void putIdle_doesNotReplaceExistingView() {
+    final AppWidgetHostView active = mock(AppWidgetHostView.class);
+    cache.putActive(1, active);
+    cache.putIdle(1, mock(AppWidgetHostView.class));
+    assertEquals(0, cache.size());
+
+    final AppWidgetHostView idle = release(2);
+    cache.putIdle(2, mock(AppWidgetHostView.class));
+    assertSame(idle, cache.take(2));
+  }
+
+  @Test
+  public void setMaxSize_zero_dropsAndStopsKeepingViews() {
+    release(1);
+    release(2);
+
+    cache.setMaxSize(0);
+    assertEquals(0, cache.size());
+
+    release(3);
+    cache.putIdle(4, mock(AppWidgetHostView.class));
+    assertEquals(0, cache.size());
+    assertFalse(cache.contains(3));
+    assertFalse(cache.contains(4));
+  }
+
+  @Test
+  public void setMaxSize_trimsLeastRecentlyUsed() {
+    release(1);
+    release(2);
+    release(3);
+
+    cache.setMaxSize(1);
+
+    assertEquals(1, cache.size());
+    assertTrue(cache.contains(3));
+  }
+
+  private void fill(int count) {
+    cache.setMaxSize(count);
+    for (int i = 0; i < count; ++i) {
+      release(i);
+    }
+  }
+
+  @Test
+  public void onTrimMemory_uiHidden_keepsViews() {
+    fill(4);
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+    assertEquals(4, cache.size());
+  }
+
+  @Test
+  public void onTrimMemory_runningModerate_keepsMostRecentHalf() {
+    fill(4);
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+    assertEquals(2, cache.size());
+    assertTrue(cache.contains(2));
+    assertTrue(cache.contains(3));
+  }
+
+  @Test
+  public void onTrimMemory_otherLevels_dropAllIdleViews() {
+    final int[] levels = {
+        ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW,
+        ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL,
+        ComponentCallbacks2.TRIM_MEMORY_BACKGROUND,
+        ComponentCallbacks2.TRIM_MEMORY_MODERATE,
+        ComponentCallbacks2.TRIM_MEMORY_COMPLETE,
+    };
+    for (final int level : levels) {
+      fill(4);
+      cache.putActive(10, mock(AppWidgetHostView.class));
+
+      cache.onTrimMemory(level);
+
+      assertEquals("level " + level, 0, cache.size());
+      // Active views are in use and never trimmed.
+      assertTrue("level " + level, cache.contains(10));
+    }
+  }
+
+  @Test
+  public void clear_dropsIdleViewsAndForgetsActiveOnes() {
+    release(1);
+    final AppWidgetHostView active = mock(AppWidgetHostView.class);
+    cache.putActive(2, active);
+
+    cache.clear();
+    cache.release(2, active);
+
+    assertEquals(0, cache.size());
+    assertFalse(cache.contains(2));
+  }
+
+  @Test
+  public void factory_reusesIdleViewAndReleasesOnDispose() {
+    final AppWidgetHost host = mock(AppWidgetHost.class);
+    final AppWidgetManager manager = mock(AppWidgetManager.class);
+    final AppWidgetHostView created = mock(AppWidgetHostView.class);
+    when(host.createView(any(), eq(1), any())).thenReturn(created);
+    final FlutterAppWidgetHostView.Factory factory =
+        new FlutterAppWidgetHostView.Factory(host, manager, cache);
+    final Context context = mock(Context.class);
+
+    final PlatformView first = factory.create(context, 0, 1);
+    assertSame(created, first.getView());
+    first.dispose();
+    assertEquals(1, cache.size());
+
+    final PlatformView second = factory.create(context, 1, 1);
+    assertSame(created, second.getView());
+    assertEquals(0, cache.size());
+    verify(host).createView(any(), anyInt(), any());
+  }
+}
@@ -0,0 +1,166 @@
+package io.baku.app_widget_host;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Looper;
+import android.widget.RemoteViews;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ThrottledAppWidgetHostViewTest {
+  /**
+   * Records applied updates rather than inflating them.
+   */
+  private static class RecordingView extends ThrottledAppWidgetHostView {
+    final List<RemoteViews> applied = new ArrayList<>();
+
+    RecordingView(Context context) {
+      super(context);
+    }
+
+    @Override
+    void apply(RemoteViews remoteViews) {
+      applied.add(remoteViews);
+    }
+  }
+
+  private Activity activity;
+  private RecordingView view;
+
+  @Before
+  public void setUp() {
+    activity = Robolectric.buildActivity(Activity.class).setup().get();
+    view = new RecordingView(activity);
+    // Attached so that delayed updates are posted to the main looper.
+    activity.setContentView(view);
+    // Start well past any interval so that the first update isn't throttled.
+    idleFor(10000);
+  }
+
+  private static void idleFor(long millis) {
+    shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+  }
+
+  private RemoteViews remoteViews() {
+    return new RemoteViews(activity.getPackageName(), android.R.layout.simple_list_item_1);
+  }
+
+  @Test
+  public void visible_appliesEachUpdate() {
+    final RemoteViews first = remoteViews(), second = remoteViews();
+    view.updateAppWidget(first);
+    view.updateAppWidget(second);
+    assertEquals(Arrays.asList(first, second), view.applied);
+  }
+
+  @Test
+  public void hidden_holdsLatestUpdateUntilVisible() {
+    view.setVisible(false);
+    final RemoteViews first = remoteViews(), second = remoteViews(), latest = remoteViews();
+    view.updateAppWidget(first);
+    view.updateAppWidget(second);
+    view.updateAppWidget(latest);
+    idleFor(1000);
+    assertEquals(Collections.emptyList(), view.applied);
+
+    view.setVisible(true);
+    assertEquals(Collections.singletonList(latest), view.applied);
+  }
+
+  @Test
+  public void shown_withoutHeldUpdate_appliesNothing() {
+    view.setVisible(false);
+    view.setVisible(true);
+    assertEquals(Collections.emptyList(), view.applied);
+  }
+
+  @Test
+  public void minUpdateInterval_defersAndCoalesces() {
+    view.setMinUpdateInterval(1000);
+    final RemoteViews first = remoteViews(), second = remoteViews(), latest = remoteViews();
+
+    view.updateAppWidget(first);
+    assertEquals(Collections.singletonList(first), view.applied);
+
+    idleFor(200);
+    view.updateAppWidget(second);
+    view.updateAppWidget(latest);
+    assertEquals(Collections.singletonList(first), view.applied);
+
+    idleFor(799);
+    assertEquals(Collections.singletonList(first), view.applied);
+    idleFor(1);
+    assertEquals(Arrays.asList(first, latest), view.applied);
+
+    // Once the interval has passed, updates apply right away again.
+    idleFor(1000);
+    final RemoteViews after = remoteViews();
+    view.updateAppWidget(after);
+    assertEquals(Arrays.asList(first, latest, after), view.applied);
+  }
+
+  @Test
+  public void hiding_cancelsDeferredUpdate() {
+    view.setMinUpdateInterval(1000);
+    final RemoteViews first = remoteViews(), deferred = remoteViews();
+    view.updateAppWidget(first);
+    view.updateAppWidget(deferred);
+
+    view.setVisible(false);
+    idleFor(2000);
+    assertEquals(Collections.singletonList(first), view.applied);
+
+    view.setVisible(true);
+    assertEquals(Arrays.asList(first, deferred), view.applied);
+  }
+
+  @Test
+  public void updateStats_countReceivedAndApplied() {
+    view.updateAppWidget(remoteViews());
+    view.setVisible(false);
+    view.updateAppWidget(remoteViews());
+    view.updateAppWidget(remoteViews());
+
+    Map<String, Object> stats = view.getUpdateStats();
+    assertEquals(3L, stats.get("received"));
+    assertEquals(1L, stats.get("applied"));
+    assertEquals(false, stats.get("visible"));
+    assertEquals(10000L, stats.get("elapsedMillis"));
+
+    view.setVisible(true);
+    stats = view.getUpdateStats();
+    assertEquals(3L, stats.get("received"));
+    assertEquals(2L, stats.get("applied"));
+    assertEquals(true, stats.get("visible"));
+  }
+
+  @Test
+  public void viewCache_holdsUpdatesWhileIdle() {
+    final AppWidgetHostViewCache cache = new AppWidgetHostViewCache();
+    cache.putActive(1, view);
+    cache.release(1, view);
+
+    final RemoteViews first = remoteViews(), latest = remoteViews();
+    view.updateAppWidget(first);
+    view.updateAppWidget(latest);
+    assertEquals(Collections.emptyList(), view.applied);
+
+    cache.take(1);
+    assertEquals(Collections.singletonList(latest), view.applied);
+  }
+}
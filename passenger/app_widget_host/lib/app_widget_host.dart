@@ -1,3 +1,7 @@
+import 'dart:async';
+import 'dart:typed_data';
+import 'dart:ui' as ui;
+
 import 'package:app_widget_host/app_widget_host_platform_interface.dart';
 import 'package:flutter/material.dart';
 import 'package:flutter/rendering.dart';
@@ -8,6 +12,98 @@ class ComponentName {
   const ComponentName(this.packageName, this.className);
 }
 
+/// Metadata of an installed app widget provider.
+///
+/// https://developer.android.com/reference/android/appwidget/AppWidgetProviderInfo
+class AppWidgetProviderInfo {
+  final ComponentName provider;
+  final String label;
+  final int minWidth, minHeight, minResizeWidth, minResizeHeight;
+  final int resizeMode, widgetCategory;
+  final bool configurable, hasPreviewImage;
+
+  AppWidgetProviderInfo.fromMap(Map map)
+      : provider = ComponentName(
+          map['packageName'] as String,
+          map['className'] as String,
+        ),
+        label = map['label'] as String,
+        minWidth = map['minWidth'] as int,
+        minHeight = map['minHeight'] as int,
+        minResizeWidth = map['minResizeWidth'] as int,
+        minResizeHeight = map['minResizeHeight'] as int,
+        resizeMode = map['resizeMode'] as int,
+        widgetCategory = map['widgetCategory'] as int,
+        configurable = map['configurable'] as bool,
+        hasPreviewImage = map['hasPreviewImage'] as bool;
+}
+
+enum ProviderImageKind { preview, icon }
+
+/// A decoded provider image, as premultiplied RGBA pixels.
+class ProviderImage {
+  final int width, height;
+  final Uint8List pixels;
+
+  const ProviderImage(this.width, this.height, this.pixels);
+
+  ProviderImage.fromMap(Map map)
+      : this(
+          map['width'] as int,
+          map['height'] as int,
+          map['pixels'] as Uint8List,
+        );
+
+  Future<ui.Image> toImage() {
+    final completer = Completer<ui.Image>();
+    ui.decodeImageFromPixels(
+      pixels,
+      width,
+      height,
+      ui.PixelFormat.rgba8888,
+      completer.complete,
+    );
+    return completer.future;
+  }
+}
+
+/// Counters of the `RemoteViews` updates an app widget's view has received
+/// from its provider and how many of them were applied, since the view was
+/// created.
+class AppWidgetUpdateStats {
+  final int received, applied;
+  final Duration elapsed;
+  final bool visible;
+
+  AppWidgetUpdateStats.fromMap(Map map)
+      : received = map['received'] as int,
+        applied = map['applied'] as int,
+        elapsed = Duration(milliseconds: map['elapsedMillis'] as int),
+        visible = map['visible'] as bool;
+
+  /// Updates received per minute.
+  double get receivedPerMinute => elapsed == Duration.zero
+      ? 0
+      : received * Duration.millisecondsPerMinute / elapsed.inMilliseconds;
+
+  @override
+  String toString() => 'received $received, applied $applied in $elapsed'
+      '${visible ? '' : ' (hidden)'}';
+}
+
+enum AppWidgetRestoreStatus {
+  /// The app widget is still bound.
+  valid,
+
+  /// The app widget had lost its binding and was bound again. It may need to
+  /// be configured.
+  rebound,
+
+  /// The app widget is unbound and could not be bound again. A new app widget
+  /// ID should be allocated.
+  unbound,
+}
+
 abstract class AppWidgetHost {
   const AppWidgetHost._();
 
@@ -27,20 +123,124 @@ abstract class AppWidgetHost {
   // persisted binding state invalid. In this case, we need to rebind.
   static Future<bool> checkAppWidget(int appWidgetId) =>
       AppWidgetHostPlatform.instance.checkAppWidget(appWidgetId);
+
+  /// Checks every persisted app widget in [appWidgets] in one platform call,
+  /// rebinding any that lost their binding, and creates views for the bound
+  /// ones ahead of their [AppWidgetHostView]s.
+  static Future<Map<int, AppWidgetRestoreStatus>> restoreAll(
+          Map<int, ComponentName> appWidgets) =>
+      AppWidgetHostPlatform.instance.restoreAll(appWidgets);
   static Future<void> deleteAppWidgetId(int appWidgetId) =>
       AppWidgetHostPlatform.instance.deleteAppWidgetId(appWidgetId);
+
+  /// Lists all installed app widget providers in one platform call.
+  static Future<List<AppWidgetProviderInfo>> getInstalledProviders() =>
+      AppWidgetHostPlatform.instance.getInstalledProviders();
+
+  /// Renders a provider's preview image or icon to fit within [width] by
+  /// [height] physical pixels, or returns null if it has none. Images are
+  /// cached on the platform side until the provider's package changes.
+  static Future<ProviderImage?> getProviderImage(
+    ComponentName provider, {
+    ProviderImageKind kind = ProviderImageKind.preview,
+    required int width,
+    required int height,
+  }) =>
+      AppWidgetHostPlatform.instance
+          .getProviderImage(provider, kind, width, height);
+
+  /// Sets how many views of disposed [AppWidgetHostView]s to keep alive, so
+  /// that showing the same app widget again doesn't have to re-inflate it.
+  /// Defaults to 8.
+  static Future<void> setViewCacheSize(int size) =>
+      AppWidgetHostPlatform.instance.setViewCacheSize(size);
+
+  /// Limits how often updates from an app widget's provider are applied while
+  /// it is visible. Updates in between are coalesced, keeping only the latest.
+  /// [Duration.zero] removes the limit.
+  static Future<void> setMinUpdateInterval(
+          int appWidgetId, Duration interval) =>
+      AppWidgetHostPlatform.instance
+          .setMinUpdateInterval(appWidgetId, interval);
+
+  /// Returns update counters for every app widget that currently has a view.
+  static Future<Map<int, AppWidgetUpdateStats>> getUpdateStats() =>
+      AppWidgetHostPlatform.instance.getUpdateStats();
 }
 
-class AppWidgetHostView extends StatelessWidget {
+/// Shows an app widget.
+///
+/// While the view is not [visible], is in a subtree where tickers are disabled,
+/// or the app is in the background, updates from the provider are held back
+/// and only the latest is applied once it becomes visible again.
+class AppWidgetHostView extends StatefulWidget {
   static const viewType = 'io.baku.AppWidgetHost';
 
   final int appWidgetId;
+  final bool visible;
+
+  const AppWidgetHostView({
+    super.key,
+    required this.appWidgetId,
+    this.visible = true,
+  });
+
+  @override
+  State<AppWidgetHostView> createState() => _AppWidgetHostViewState();
+}
+
+class _AppWidgetHostViewState extends State<AppWidgetHostView>
+    with WidgetsBindingObserver {
+  /// Platform views start out visible.
+  bool _platformVisible = true;
+
+  bool get _visible {
+    final lifecycleState = WidgetsBinding.instance.lifecycleState;
+    return widget.visible &&
+        TickerMode.of(context) &&
+        (lifecycleState == null || lifecycleState == AppLifecycleState.resumed);
+  }
 
-  const AppWidgetHostView({super.key, required this.appWidgetId});
+  void _updateVisibility({bool force = false}) {
+    final visible = _visible;
+    if (force || visible != _platformVisible) {
+      _platformVisible = visible;
+      AppWidgetHostPlatform.instance
+          .setAppWidgetVisible(widget.appWidgetId, visible);
+    }
+  }
+
+  @override
+  void initState() {
+    super.initState();
+    WidgetsBinding.instance.addObserver(this);
+  }
+
+  @override
+  void dispose() {
+    WidgetsBinding.instance.removeObserver(this);
+    super.dispose();
+  }
+
+  @override
+  void didChangeAppLifecycleState(AppLifecycleState state) =>
+      _updateVisibility();
+
+  @override
+  void didChangeDependencies() {
+    super.didChangeDependencies();
+    _updateVisibility();
+  }
+
+  @override
+  void didUpdateWidget(AppWidgetHostView oldWidget) {
+    super.didUpdateWidget(oldWidget);
+    _updateVisibility(force: widget.appWidgetId != oldWidget.appWidgetId);
+  }
 
   @override
   Widget build(BuildContext context) => PlatformViewLink(
-        viewType: viewType,
+        viewType: AppWidgetHostView.viewType,
         surfaceFactory: (context, controller) => AndroidViewSurface(
           controller: controller as AndroidViewController,
           gestureRecognizers: const {},
@@ -49,13 +249,16 @@ class AppWidgetHostView extends StatelessWidget {
         onCreatePlatformView: (params) =>
             PlatformViewsService.initSurfaceAndroidView(
           id: params.id,
-          viewType: viewType,
+          viewType: AppWidgetHostView.viewType,
           layoutDirection: Directionality.of(context),
-          creationParams: appWidgetId,
+          creationParams: widget.appWidgetId,
           creationParamsCodec: const StandardMessageCodec(),
           onFocus: () => params.onFocusChanged(true),
         )
               ..addOnPlatformViewCreatedListener(params.onPlatformViewCreated)
+              // A new platform view may reuse a cached view that was hidden.
+              ..addOnPlatformViewCreatedListener(
+                  (_) => _updateVisibility(force: !_platformVisible))
               ..create(),
       );
 }
@@ -36,6 +36,62 @@ class MethodChannelAppWidgetHost extends AppWidgetHostPlatform {
   Future<bool> checkAppWidget(int appWidgetId) async =>
       await methodChannel.invokeMethod('checkAppWidget', appWidgetId);
   @override
+  Future<Map<int, AppWidgetRestoreStatus>> restoreAll(
+          Map<int, ComponentName> appWidgets) async =>
+      {
+        for (final entry in (await methodChannel
+                .invokeMapMethod<int, String>('restoreAll', [
+          for (final entry in appWidgets.entries)
+            {
+              'appWidgetId': entry.key,
+              'packageName': entry.value.packageName,
+              'className': entry.value.className,
+            },
+        ]))!
+            .entries)
+          entry.key: AppWidgetRestoreStatus.values.byName(entry.value),
+      };
+  @override
   Future<void> deleteAppWidgetId(int appWidgetId) async =>
       await methodChannel.invokeMethod('deleteAppWidgetId', appWidgetId);
+  @override
+  Future<void> setViewCacheSize(int size) async =>
+      await methodChannel.invokeMethod('setViewCacheSize', size);
+  @override
+  Future<void> setAppWidgetVisible(int appWidgetId, bool visible) async =>
+      await methodChannel
+          .invokeMethod('setAppWidgetVisible', [appWidgetId, visible]);
+  @override
+  Future<void> setMinUpdateInterval(int appWidgetId, Duration interval) async =>
+      await methodChannel.invokeMethod(
+          'setMinUpdateInterval', [appWidgetId, interval.inMilliseconds]);
+  @override
+  Future<Map<int, AppWidgetUpdateStats>> getUpdateStats() async => {
+        for (final entry in (await methodChannel
+                .invokeMapMethod<int, Map>('getUpdateStats'))!
+            .entries)
+          entry.key: AppWidgetUpdateStats.fromMap(entry.value),
+      };
+  @override
+  Future<List<AppWidgetProviderInfo>> getInstalledProviders() async => [
+        for (final provider in (await methodChannel
+            .invokeListMethod<Map>('getInstalledProviders'))!)
+          AppWidgetProviderInfo.fromMap(provider),
+      ];
+  @override
+  Future<ProviderImage?> getProviderImage(
+    ComponentName provider,
+    ProviderImageKind kind,
+    int width,
+    int height,
+  ) async {
+    final image = await methodChannel.invokeMapMethod('getProviderImage', {
+      'packageName': provider.packageName,
+      'className': provider.className,
+      'kind': kind.name,
+      'width': width,
+      'height': height,
+    });
+    return image == null ? null : ProviderImage.fromMap(image);
+  }
 }
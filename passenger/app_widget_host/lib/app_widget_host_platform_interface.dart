@@ -30,5 +30,18 @@ abstract class AppWidgetHostPlatform extends PlatformInterface {
   Future<bool> requestBindAppWidget(int appWidgetId, ComponentName provider);
   Future<bool> configureAppWidget(int appWidgetId);
   Future<bool> checkAppWidget(int appWidgetId);
+  Future<Map<int, AppWidgetRestoreStatus>> restoreAll(
+      Map<int, ComponentName> appWidgets);
   Future<void> deleteAppWidgetId(int appWidgetId);
+  Future<void> setViewCacheSize(int size);
+  Future<void> setAppWidgetVisible(int appWidgetId, bool visible);
+  Future<void> setMinUpdateInterval(int appWidgetId, Duration interval);
+  Future<Map<int, AppWidgetUpdateStats>> getUpdateStats();
+  Future<List<AppWidgetProviderInfo>> getInstalledProviders();
+  Future<ProviderImage?> getProviderImage(
+    ComponentName provider,
+    ProviderImageKind kind,
+    int width,
+    int height,
+  );
 }
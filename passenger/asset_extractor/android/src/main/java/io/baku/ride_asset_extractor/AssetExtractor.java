@@ -0,0 +1,159 @@
+package io.baku.ride_asset_extractor;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Extracts a zip archive into a directory in a single streaming pass, so memory use doesn't depend
+ * on the size of the archive or of any file in it.
+ */
+class AssetExtractor {
+  private static final int BUFFER_SIZE = 64 << 10;
+
+  static class Result {
+    /**
+     * MD5 of the whole archive, which the hub uses as the assets version.
+     */
+    final String version;
+    /**
+     * SHA-1 of each extracted file, by path relative to the destination.
+     */
+    final Map<String, String> hashes;
+
+    Result(String version, Map<String, String> hashes) {
+      this.version = version;
+      this.hashes = hashes;
+    }
+
+    Map<String, Object> toMap() {
+      final Map<String, Object> map = new HashMap<>();
+      map.put("version", version);
+      map.put("hashes", hashes);
+      return map;
+    }
+  }
+
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+
+  /**
+   * Extracts {@code archive} into {@code staging}, then swaps {@code staging} in for
+   * {@code destination}. On failure, {@code destination} is left as it was.
+   */
+  Result extract(File archive, File destination, File staging) throws IOException {
+    deleteRecursively(staging);
+    if (!staging.mkdirs()) {
+      throw new IOException("Failed to create " + staging);
+    }
+
+    final MessageDigest archiveDigest = newDigest("MD5"), fileDigest = newDigest("SHA-1");
+    final Map<String, String> hashes = new HashMap<>();
+    final String root = staging.getCanonicalPath() + File.separator;
+
+    try (final DigestInputStream in = new DigestInputStream(
+        new BufferedInputStream(new FileInputStream(archive), BUFFER_SIZE), archiveDigest);
+         final ZipInputStream zip = new ZipInputStream(in)) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        final File file = new File(staging, entry.getName());
+        if (!file.getCanonicalPath().startsWith(root)) {
+          throw new ZipException("Entry is outside the destination: " + entry.getName());
+        }
+
+        if (entry.isDirectory()) {
+          if (!file.isDirectory() && !file.mkdirs()) {
+            throw new IOException("Failed to create " + file);
+          }
+          continue;
+        }
+
+        final File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+          throw new IOException("Failed to create " + parent);
+        }
+        fileDigest.reset();
+        try (final FileOutputStream out = new FileOutputStream(file)) {
+          // ZipInputStream checks the entry's CRC once it has been read to the end, and throws if
+          // it doesn't match.
+          int read;
+          while ((read = zip.read(buffer)) != -1) {
+            fileDigest.update(buffer, 0, read);
+            out.write(buffer, 0, read);
+          }
+        }
+        hashes.put(entry.getName(), toHex(fileDigest.digest()));
+      }
+
+      // The version covers the central directory too.
+      drain(in);
+    } catch (IOException | RuntimeException e) {
+      deleteRecursively(staging);
+      throw e;
+    }
+
+    swap(staging, destination);
+    return new Result(toHex(archiveDigest.digest()), hashes);
+  }
+
+  /**
+   * Replaces {@code destination} with {@code source} using renames, so that readers never see a
+   * mix of old and new files, though {@code destination} is briefly missing.
+   */
+  private static void swap(File source, File destination) throws IOException {
+    final File old = new File(destination.getParentFile(), destination.getName() + ".old");
+    deleteRecursively(old);
+    if (destination.exists() && !destination.renameTo(old)) {
+      throw new IOException("Failed to move " + destination + " aside");
+    }
+    if (!source.renameTo(destination)) {
+      // Put the old assets back rather than leave none.
+      old.renameTo(destination);
+      throw new IOException("Failed to move " + source + " into place");
+    }
+    deleteRecursively(old);
+  }
+
+  private void drain(InputStream in) throws IOException {
+    while (in.read(buffer) != -1) {
+      // Just digesting.
+    }
+  }
+
+  private static MessageDigest newDigest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform supports MD5 and SHA-1.
+      throw new AssertionError(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    final StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (final byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  private static void deleteRecursively(File file) {
+    final File[] children = file.listFiles();
+    if (children != null) {
+      for (final File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+}
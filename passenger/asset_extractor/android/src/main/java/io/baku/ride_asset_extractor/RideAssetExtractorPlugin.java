@@ -0,0 +1,85 @@
+package io.baku.ride_asset_extractor;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * RideAssetExtractorPlugin
+ */
+public class RideAssetExtractorPlugin implements FlutterPlugin, MethodCallHandler {
+  private MethodChannel channel;
+  /**
+   * Delivers results on the platform thread, as method channel results must be.
+   */
+  private final Executor mainExecutor;
+  /**
+   * Single threaded so that extractions into the same directories don't interleave.
+   */
+  private ExecutorService executor;
+
+  public RideAssetExtractorPlugin() {
+    this(new Handler(Looper.getMainLooper())::post);
+  }
+
+  RideAssetExtractorPlugin(Executor mainExecutor) {
+    this.mainExecutor = mainExecutor;
+  }
+
+  @Override
+  public void onAttachedToEngine(@NonNull FlutterPluginBinding binding) {
+    channel = new MethodChannel(binding.getBinaryMessenger(), "ride_asset_extractor");
+    channel.setMethodCallHandler(this);
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @Override
+  public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
+    switch (call.method) {
+      case "extract": {
+        final List<String> args = call.arguments();
+        if (args == null || args.size() != 3) {
+          result.error("Argument exception", "Expected [archive, destination, staging].", args);
+          return;
+        }
+        final File archive = new File(args.get(0)), destination = new File(args.get(1)),
+            staging = new File(args.get(2));
+        executor.execute(() -> {
+          try {
+            final AssetExtractor.Result extracted =
+                new AssetExtractor().extract(archive, destination, staging);
+            mainExecutor.execute(() -> result.success(extracted.toMap()));
+          } catch (IOException | RuntimeException e) {
+            // ZipInputStream throws IllegalArgumentException for malformed entry names, among
+            // other unchecked failures. Whatever goes wrong, the result has to complete, or the
+            // installer's queue stalls behind it.
+            mainExecutor.execute(() -> result.error("failed", e.toString(), null));
+          }
+        });
+        break;
+      }
+      default:
+        result.notImplemented();
+    }
+  }
+
+  @Override
+  public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
+    channel.setMethodCallHandler(null);
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,129 @@
+package io.baku.ride_asset_extractor;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.flutter.embedding.engine.plugins.FlutterPlugin.FlutterPluginBinding;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RideAssetExtractorPluginTest {
+  private static final long TIMEOUT_MS = 5000;
+
+  @Rule
+  public final TemporaryFolder temp = new TemporaryFolder();
+
+  private FlutterPluginBinding binding;
+  private RideAssetExtractorPlugin plugin;
+  private File destination, staging;
+
+  @Before
+  public void setUp() throws IOException {
+    binding = mock(FlutterPluginBinding.class);
+    when(binding.getBinaryMessenger()).thenReturn(mock(BinaryMessenger.class));
+    plugin = new RideAssetExtractorPlugin(Runnable::run);
+    plugin.onAttachedToEngine(binding);
+
+    destination = new File(temp.getRoot(), "assets");
+    staging = new File(temp.getRoot(), "assets.staging");
+    assertTrue(destination.mkdir());
+    assertTrue(new File(destination, "existing.txt").createNewFile());
+  }
+
+  @After
+  public void tearDown() {
+    plugin.onDetachedFromEngine(binding);
+  }
+
+  private MethodChannel.Result extract(File archive) {
+    final MethodChannel.Result result = mock(MethodChannel.Result.class);
+    plugin.onMethodCall(new MethodCall("extract", Arrays.asList(
+        archive.getPath(), destination.getPath(), staging.getPath())), result);
+    return result;
+  }
+
+  private void assertUntouched() {
+    assertTrue(new File(destination, "existing.txt").exists());
+    assertFalse(staging.exists());
+  }
+
+  @Test
+  public void extract_validArchive_succeeds() throws IOException {
+    final File archive = temp.newFile("valid.zip");
+    try (final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+      zip.putNextEntry(new ZipEntry("a/b.txt"));
+      zip.write("hello".getBytes(StandardCharsets.UTF_8));
+      zip.closeEntry();
+    }
+
+    final MethodChannel.Result result = extract(archive);
+
+    verify(result, timeout(TIMEOUT_MS)).success(any());
+    assertTrue(new File(destination, "a/b.txt").exists());
+    assertFalse(new File(destination, "existing.txt").exists());
+  }
+
+  @Test
+  public void extract_malformedEntryName_completesWithError() throws IOException {
+    // Latin-1 names without the UTF-8 flag decode as malformed UTF-8, which ZipInputStream
+    // reports with an IllegalArgumentException rather than an IOException.
+    final File archive = temp.newFile("malformed.zip");
+    try (final ZipOutputStream zip =
+             new ZipOutputStream(new FileOutputStream(archive), StandardCharsets.ISO_8859_1)) {
+      zip.putNextEntry(new ZipEntry("\u00ff\u00fe.txt"));
+      zip.write(1);
+      zip.closeEntry();
+    }
+
+    final MethodChannel.Result result = extract(archive);
+
+    verify(result, timeout(TIMEOUT_MS)).error(eq("failed"), anyString(), isNull());
+    verify(result, never()).success(any());
+    assertUntouched();
+  }
+
+  @Test
+  public void extract_corruptEntry_completesWithError() throws IOException {
+    final File archive = temp.newFile("corrupt.zip");
+    final byte[] content = new byte[4096];
+    Arrays.fill(content, (byte) 'x');
+    try (final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+      zip.putNextEntry(new ZipEntry("file.txt"));
+      zip.write(content);
+      zip.closeEntry();
+    }
+    // Cut the archive off partway through the compressed entry.
+    try (final RandomAccessFile file = new RandomAccessFile(archive, "rw")) {
+      file.setLength(48);
+    }
+
+    final MethodChannel.Result result = extract(archive);
+
+    verify(result, timeout(TIMEOUT_MS)).error(eq("failed"), anyString(), isNull());
+    verify(result, never()).success(any());
+    assertUntouched();
+  }
+}
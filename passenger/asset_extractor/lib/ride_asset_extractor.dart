@@ -0,0 +1,38 @@
+import 'package:flutter/foundation.dart';
+import 'package:flutter/services.dart';
+
+import 'ride_asset_extractor_platform_interface.dart';
+
+/// The outcome of extracting an asset archive.
+@immutable
+class ExtractedAssets {
+  /// MD5 of the archive, which is how the hub identifies an assets version.
+  final String version;
+
+  /// SHA-1 of each extracted file, by path relative to the destination.
+  final Map<String, String> hashes;
+
+  const ExtractedAssets({required this.version, required this.hashes});
+
+  ExtractedAssets.fromMap(Map map)
+      : version = map['version'] as String,
+        hashes = Map.from(map['hashes'] as Map);
+}
+
+abstract class AssetExtractor {
+  const AssetExtractor._();
+
+  /// Extracts the zip file at [archive] into [staging] and then moves it into
+  /// place at [destination], replacing what was there.
+  ///
+  /// The archive is streamed from disk and checked against its CRCs, so memory
+  /// use doesn't grow with its size. If it is corrupt, [destination] is left as
+  /// it was and this throws a [PlatformException].
+  static Future<ExtractedAssets> extract({
+    required String archive,
+    required String destination,
+    required String staging,
+  }) =>
+      RideAssetExtractorPlatform.instance
+          .extract(archive, destination, staging);
+}
@@ -0,0 +1,18 @@
+import 'package:flutter/services.dart';
+
+import 'ride_asset_extractor.dart';
+import 'ride_asset_extractor_platform_interface.dart';
+
+/// An implementation of [RideAssetExtractorPlatform] that uses method channels.
+class MethodChannelRideAssetExtractor extends RideAssetExtractorPlatform {
+  static const methodChannel = MethodChannel('ride_asset_extractor');
+
+  @override
+  Future<ExtractedAssets> extract(
+    String archive,
+    String destination,
+    String staging,
+  ) async =>
+      ExtractedAssets.fromMap((await methodChannel
+          .invokeMapMethod('extract', [archive, destination, staging]))!);
+}
@@ -0,0 +1,33 @@
+import 'package:plugin_platform_interface/plugin_platform_interface.dart';
+
+import 'ride_asset_extractor.dart';
+import 'ride_asset_extractor_method_channel.dart';
+
+abstract class RideAssetExtractorPlatform extends PlatformInterface {
+  /// Constructs a RideAssetExtractorPlatform.
+  RideAssetExtractorPlatform() : super(token: _token);
+
+  static final Object _token = Object();
+
+  static RideAssetExtractorPlatform _instance =
+      MethodChannelRideAssetExtractor();
+
+  /// The default instance of [RideAssetExtractorPlatform] to use.
+  ///
+  /// Defaults to [MethodChannelRideAssetExtractor].
+  static RideAssetExtractorPlatform get instance => _instance;
+
+  /// Platform-specific implementations should set this with their own
+  /// platform-specific class that extends [RideAssetExtractorPlatform] when
+  /// they register themselves.
+  static set instance(RideAssetExtractorPlatform instance) {
+    PlatformInterface.verifyToken(instance, _token);
+    _instance = instance;
+  }
+
+  Future<ExtractedAssets> extract(
+    String archive,
+    String destination,
+    String staging,
+  );
+}
@@ -0,0 +1,60 @@
+import 'package:flutter/services.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:ride_asset_extractor/ride_asset_extractor.dart';
+import 'package:ride_asset_extractor/ride_asset_extractor_method_channel.dart';
+import 'package:ride_asset_extractor/ride_asset_extractor_platform_interface.dart';
+
+void main() {
+  TestWidgetsFlutterBinding.ensureInitialized();
+
+  test('$MethodChannelRideAssetExtractor is the default instance', () {
+    expect(RideAssetExtractorPlatform.instance,
+        isInstanceOf<MethodChannelRideAssetExtractor>());
+  });
+
+  test('extract returns the version and file hashes', () async {
+    final messenger =
+        TestDefaultBinaryMessengerBinding.instance.defaultBinaryMessenger;
+    messenger.setMockMethodCallHandler(
+      MethodChannelRideAssetExtractor.methodChannel,
+      (call) async {
+        expect(call.method, 'extract');
+        expect(call.arguments, ['assets.zip', 'assets', 'assets.partial']);
+        return {
+          'version': 'v1',
+          'hashes': {'images/logo.png': 'abc'},
+        };
+      },
+    );
+    addTearDown(() => messenger.setMockMethodCallHandler(
+        MethodChannelRideAssetExtractor.methodChannel, null));
+
+    final extracted = await AssetExtractor.extract(
+      archive: 'assets.zip',
+      destination: 'assets',
+      staging: 'assets.partial',
+    );
+    expect(extracted.version, 'v1');
+    expect(extracted.hashes, {'images/logo.png': 'abc'});
+  });
+
+  test('extract surfaces failures', () async {
+    final messenger =
+        TestDefaultBinaryMessengerBinding.instance.defaultBinaryMessenger;
+    messenger.setMockMethodCallHandler(
+      MethodChannelRideAssetExtractor.methodChannel,
+      (call) async => throw PlatformException(code: 'failed'),
+    );
+    addTearDown(() => messenger.setMockMethodCallHandler(
+        MethodChannelRideAssetExtractor.methodChannel, null));
+
+    expect(
+      AssetExtractor.extract(
+        archive: 'assets.zip',
+        destination: 'assets',
+        staging: 'assets.partial',
+      ),
+      throwsA(isA<PlatformException>()),
+    );
+  });
+}
@@ -0,0 +1,168 @@
+package io.baku.ride_device_policy;
+
+import android.app.AppOpsManager;
+import android.app.admin.DevicePolicyManager;
+import android.content.ComponentName;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.flutter.plugin.common.EventChannel.EventSink;
+
+/**
+ * An in-memory snapshot of the device admin, accessibility service and overlay permission state,
+ * kept fresh by content observers, app op watches and {@link RideDevicePolicyPlugin}'s device admin
+ * callbacks so that checks don't have to go through IPC.
+ * <p>
+ * State is only tracked while at least one plugin is attached. Must be used from the main thread.
+ */
+class PermissionMonitor {
+  private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private static final Set<EventSink> sinks = new LinkedHashSet<>();
+
+  private static Context context;
+  private static int attachCount;
+
+  private static boolean isAdminActive, isAccessibilityActive, canDrawOverlays;
+
+  private static final ContentObserver accessibilityObserver = new ContentObserver(mainHandler) {
+    @Override
+    public void onChange(boolean selfChange) {
+      setAccessibilityActive(readAccessibilityActive());
+    }
+  };
+
+  private static Object overlayOpListener;
+
+  static void attach(Context context) {
+    if (attachCount++ > 0) {
+      return;
+    }
+    PermissionMonitor.context = context.getApplicationContext();
+
+    final ContentResolver contentResolver = context.getContentResolver();
+    contentResolver.registerContentObserver(
+        Settings.Secure.getUriFor(Settings.Secure.ACCESSIBILITY_ENABLED), false, accessibilityObserver);
+    contentResolver.registerContentObserver(
+        Settings.Secure.getUriFor(Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES), false, accessibilityObserver);
+
+    if (Build.VERSION.SDK_INT >= 23) {
+      final String packageName = context.getPackageName();
+      final AppOpsManager.OnOpChangedListener listener = (op, changedPackage) -> {
+        if (packageName.equals(changedPackage)) {
+          // Op changes are delivered on a binder thread.
+          mainHandler.post(() -> setCanDrawOverlays(readCanDrawOverlays()));
+        }
+      };
+      getAppOpsManager().startWatchingMode(AppOpsManager.OPSTR_SYSTEM_ALERT_WINDOW, packageName, listener);
+      overlayOpListener = listener;
+    }
+
+    isAdminActive = readAdminActive();
+    isAccessibilityActive = readAccessibilityActive();
+    canDrawOverlays = readCanDrawOverlays();
+  }
+
+  static void detach() {
+    if (--attachCount > 0) {
+      return;
+    }
+    context.getContentResolver().unregisterContentObserver(accessibilityObserver);
+    if (Build.VERSION.SDK_INT >= 23 && overlayOpListener != null) {
+      getAppOpsManager().stopWatchingMode((AppOpsManager.OnOpChangedListener) overlayOpListener);
+      overlayOpListener = null;
+    }
+    sinks.clear();
+    context = null;
+  }
+
+  static boolean isAdminActive() {
+    return isAdminActive;
+  }
+
+  static boolean isAccessibilityActive() {
+    return isAccessibilityActive;
+  }
+
+  static void addSink(EventSink sink) {
+    sinks.add(sink);
+    sink.success(toMap());
+  }
+
+  static void removeSink(EventSink sink) {
+    sinks.remove(sink);
+  }
+
+  static void setAdminActive(boolean value) {
+    if (context != null && value != isAdminActive) {
+      isAdminActive = value;
+      notifySinks();
+    }
+  }
+
+  /**
+   * Rereads the admin state, for paths that don't otherwise get a device admin callback, like an
+   * activity result.
+   */
+  static void refreshAdminActive() {
+    if (context != null) {
+      setAdminActive(readAdminActive());
+    }
+  }
+
+  private static void setAccessibilityActive(boolean value) {
+    if (value != isAccessibilityActive) {
+      isAccessibilityActive = value;
+      notifySinks();
+    }
+  }
+
+  private static void setCanDrawOverlays(boolean value) {
+    if (context != null && value != canDrawOverlays) {
+      canDrawOverlays = value;
+      notifySinks();
+    }
+  }
+
+  private static Map<String, Object> toMap() {
+    final Map<String, Object> map = new HashMap<>();
+    map.put("admin", isAdminActive);
+    map.put("accessibility", isAccessibilityActive);
+    map.put("overlay", canDrawOverlays);
+    return map;
+  }
+
+  private static void notifySinks() {
+    final Map<String, Object> status = toMap();
+    for (final EventSink sink : sinks) {
+      sink.success(status);
+    }
+  }
+
+  private static AppOpsManager getAppOpsManager() {
+    return (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
+  }
+
+  private static boolean readAdminActive() {
+    final DevicePolicyManager devicePolicyManager =
+        (DevicePolicyManager) context.getSystemService(Context.DEVICE_POLICY_SERVICE);
+    return devicePolicyManager.isAdminActive(new ComponentName(context, RideDevicePolicyPlugin.class));
+  }
+
+  private static boolean readAccessibilityActive() {
+    return RideAccessibilityService.isEnabled(context);
+  }
+
+  private static boolean readCanDrawOverlays() {
+    return Build.VERSION.SDK_INT < 23 || Settings.canDrawOverlays(context);
+  }
+}
@@ -1,34 +1,110 @@
 package io.baku.ride_device_policy;
 
 import android.accessibilityservice.AccessibilityService;
+import android.content.ComponentName;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.provider.Settings;
+import android.text.TextUtils;
 import android.util.Log;
 import android.view.accessibility.AccessibilityEvent;
 
-import io.flutter.plugin.common.EventChannel.EventSink;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * This is a pared-down https://github.com/X-SLAYER/flutter_accessibility_service.
  */
 public class RideAccessibilityService extends AccessibilityService {
+  /**
+   * Notified on the main thread when the service connects or unbinds.
+   */
+  public interface ConnectionListener {
+    void onConnected(RideAccessibilityService service);
+
+    void onDisconnected();
+  }
+
   // The accessibility service seems to run in the same process as the Flutter app, which is super
   // convenient but seems too good to be true. Keep an eye on this.
+  @Nullable
   public static RideAccessibilityService instance;
-  public static EventSink eventSink;
+  static final WindowEventFilter windowEventFilter = new WindowEventFilter();
+
+  private static final Set<ConnectionListener> connectionListeners = new LinkedHashSet<>();
+
+  /**
+   * Adds a listener, calling {@link ConnectionListener#onConnected} right away if the service is
+   * already connected. Must be called on the main thread.
+   */
+  public static void addConnectionListener(ConnectionListener listener) {
+    connectionListeners.add(listener);
+    if (instance != null) {
+      listener.onConnected(instance);
+    }
+  }
+
+  /**
+   * Must be called on the main thread.
+   */
+  public static void removeConnectionListener(ConnectionListener listener) {
+    connectionListeners.remove(listener);
+  }
+
+  /**
+   * Whether the user has enabled this service in accessibility settings. If not, it won't connect
+   * until they do.
+   */
+  public static boolean isEnabled(Context context) {
+    final ContentResolver contentResolver = context.getContentResolver();
+    if (Settings.Secure.getInt(contentResolver, Settings.Secure.ACCESSIBILITY_ENABLED, 0) != 1) {
+      return false;
+    }
+
+    final String accessibilityServices =
+        Settings.Secure.getString(contentResolver, Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES);
+    if (accessibilityServices == null) {
+      return false;
+    }
+
+    final ComponentName service = new ComponentName(context, RideAccessibilityService.class);
+    final TextUtils.SimpleStringSplitter splitter = new TextUtils.SimpleStringSplitter(':');
+    splitter.setString(accessibilityServices);
+    for (final String entry : splitter) {
+      // Entries may use the short ".ClassName" form, so compare parsed component names.
+      if (service.equals(ComponentName.unflattenFromString(entry))) {
+        return true;
+      }
+    }
+    return false;
+  }
 
   @Override
   protected void onServiceConnected() {
     Log.i("ride_launcher", "A11y conntected.");
-    synchronized (RideAccessibilityService.class) {
-      instance = this;
-      RideAccessibilityService.class.notifyAll();
+    instance = this;
+    for (final ConnectionListener listener : new ArrayList<>(connectionListeners)) {
+      listener.onConnected(this);
     }
   }
 
   @Override
-  public void onAccessibilityEvent(AccessibilityEvent event) {
-    if (eventSink != null) {
-      eventSink.success(event.getPackageName());
+  public boolean onUnbind(Intent intent) {
+    Log.i("ride_launcher", "A11y unbound.");
+    instance = null;
+    for (final ConnectionListener listener : new ArrayList<>(connectionListeners)) {
+      listener.onDisconnected();
     }
+    return super.onUnbind(intent);
+  }
+
+  @Override
+  public void onAccessibilityEvent(AccessibilityEvent event) {
+    windowEventFilter.onAccessibilityEvent(event);
   }
 
   @Override
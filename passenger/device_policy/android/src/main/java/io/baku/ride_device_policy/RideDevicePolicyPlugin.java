@@ -6,15 +6,15 @@ import android.app.admin.DevicePolicyManager;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.media.AudioManager;
 import android.os.PowerManager;
 import android.provider.Settings;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
@@ -39,15 +39,21 @@ public class RideDevicePolicyPlugin extends DeviceAdminReceiver
 
   private MethodChannel channel;
   private EventChannel windowEvents;
+  private EventChannel permissionEvents;
+  private EventSink permissionSink;
+  private EventChannel systemSettingEvents;
+  private EventSink systemSettingSink;
+  private EventChannel volumeEvents;
+  private EventSink volumeSink;
+  private EventChannel screenEvents;
+  private EventSink screenSink;
   private Context context;
   private ComponentName componentName;
   private DevicePolicyManager devicePolicyManager;
-  private AudioManager audioManager;
   private ActivityPluginBinding activityBinding;
 
   private Result activityResult;
   private PowerManager.WakeLock wakeLock;
-  private int maxVolume;
 
   @Override
   public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
@@ -55,17 +61,88 @@ public class RideDevicePolicyPlugin extends DeviceAdminReceiver
     channel.setMethodCallHandler(this);
     windowEvents = new EventChannel(flutterPluginBinding.getBinaryMessenger(), "ride_device_policy.windowEvents");
     windowEvents.setStreamHandler(this);
+    permissionEvents = new EventChannel(flutterPluginBinding.getBinaryMessenger(), "ride_device_policy.permissions");
+    permissionEvents.setStreamHandler(new StreamHandler() {
+      @Override
+      public void onListen(Object arguments, EventSink events) {
+        permissionSink = events;
+        PermissionMonitor.addSink(events);
+      }
+
+      @Override
+      public void onCancel(Object arguments) {
+        PermissionMonitor.removeSink(permissionSink);
+        permissionSink = null;
+      }
+    });
+
+    systemSettingEvents = new EventChannel(flutterPluginBinding.getBinaryMessenger(), "ride_device_policy.systemSettings");
+    systemSettingEvents.setStreamHandler(new StreamHandler() {
+      @Override
+      public void onListen(Object arguments, EventSink events) {
+        systemSettingSink = events;
+        SystemSettingsCache.addSink(events);
+      }
+
+      @Override
+      public void onCancel(Object arguments) {
+        SystemSettingsCache.removeSink(systemSettingSink);
+        systemSettingSink = null;
+      }
+    });
+
+    volumeEvents = new EventChannel(flutterPluginBinding.getBinaryMessenger(), "ride_device_policy.volume");
+    volumeEvents.setStreamHandler(new StreamHandler() {
+      @Override
+      public void onListen(Object arguments, EventSink events) {
+        volumeSink = events;
+        VolumeController.addSink(events);
+      }
+
+      @Override
+      public void onCancel(Object arguments) {
+        VolumeController.removeSink(volumeSink);
+        volumeSink = null;
+      }
+    });
+
+    screenEvents = new EventChannel(flutterPluginBinding.getBinaryMessenger(), "ride_device_policy.screen");
+    screenEvents.setStreamHandler(new StreamHandler() {
+      @Override
+      public void onListen(Object arguments, EventSink events) {
+        screenSink = events;
+        ScreenStateMonitor.addSink(context, events);
+      }
+
+      @Override
+      public void onCancel(Object arguments) {
+        ScreenStateMonitor.removeSink(screenSink);
+        screenSink = null;
+      }
+    });
 
     context = flutterPluginBinding.getApplicationContext();
+    PermissionMonitor.attach(context);
+    SystemSettingsCache.attach(context);
+    VolumeController.attach(context);
 
     componentName = new ComponentName(context, getClass());
     devicePolicyManager = (DevicePolicyManager) context.getSystemService(Context.DEVICE_POLICY_SERVICE);
-    audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
 
     final PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
     wakeLock = powerManager.newWakeLock(PowerManager.FULL_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP, "RideDevicePolicyPlugin:wakeUp");
+  }
 
-    maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC);
+  @Override
+  public void onEnabled(@NonNull Context context, @NonNull Intent intent) {
+    // This is a separate instance created by the system to receive the broadcast, so state is
+    // forwarded to the monitor rather than kept on this.
+    PermissionMonitor.setAdminActive(true);
+  }
+
+  @Override
+  public void onDisabled(@NonNull Context context, @NonNull Intent intent) {
+    PermissionMonitor.setAdminActive(false);
   }
 
   @Override
@@ -99,6 +176,8 @@ public class RideDevicePolicyPlugin extends DeviceAdminReceiver
   public boolean onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
     switch (requestCode) {
       case REQUEST_CODE_ENABLE_ADMIN:
+        PermissionMonitor.refreshAdminActive();
+        // fallthrough
       case REQUEST_CODE_ENABLE_ACCESSIBILITY:
         switch (resultCode) {
           case Activity.RESULT_OK:
@@ -118,27 +197,11 @@ public class RideDevicePolicyPlugin extends DeviceAdminReceiver
     }
   }
 
-  private boolean isAccessibilityActive() {
-    final int accessibilityEnabled;
-    try {
-      accessibilityEnabled = Settings.Secure.getInt(context.getContentResolver(), android.provider.Settings.Secure.ACCESSIBILITY_ENABLED);
-    } catch (Settings.SettingNotFoundException e) {
-      return false;
-    }
-
-    if (accessibilityEnabled == 1) {
-      final String service = context.getPackageName() + "/" + RideAccessibilityService.class.getCanonicalName();
-      final String accessibilityServices = Settings.Secure.getString(context.getContentResolver(), Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES);
-      return accessibilityServices != null && Pattern.matches("(?:^|:)" + service + "(?:$|:)", accessibilityServices);
-    }
-    return false;
-  }
-
   @Override
   public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
     switch (call.method) {
       case "requestAdminIfNeeded": {
-        if (devicePolicyManager.isAdminActive(componentName)) {
+        if (PermissionMonitor.isAdminActive()) {
           result.success(true);
           return;
         }
@@ -164,7 +227,7 @@ public class RideDevicePolicyPlugin extends DeviceAdminReceiver
         break;
       }
       case "requestAccessibilityIfNeeded": {
-        if (isAccessibilityActive()) {
+        if (PermissionMonitor.isAccessibilityActive()) {
           result.success(true);
           return;
         }
@@ -187,15 +250,35 @@ public class RideDevicePolicyPlugin extends DeviceAdminReceiver
       }
       case "setSystemSetting": {
         final List<String> arguments = call.arguments();
-        if (Settings.System.putString(context.getContentResolver(), arguments.get(0), arguments.get(1))) {
-          result.success(null);
-        } else {
-          result.error("failed", "android.provider.Settings.System.putString failed", null);
-        }
+        SystemSettingsCache.put(Collections.singletonMap(arguments.get(0), arguments.get(1)), result);
         break;
       }
       case "getSystemSetting": {
-        result.success(Settings.System.getString(context.getContentResolver(), call.arguments()));
+        final String key = call.arguments();
+        SystemSettingsCache.get(Collections.singletonList(key), new Result() {
+          @Override
+          public void success(Object values) {
+            result.success(((Map<?, ?>) values).get(key));
+          }
+
+          @Override
+          public void error(@NonNull String errorCode, String errorMessage, Object errorDetails) {
+            result.error(errorCode, errorMessage, errorDetails);
+          }
+
+          @Override
+          public void notImplemented() {
+            result.notImplemented();
+          }
+        });
+        break;
+      }
+      case "putSystemSettings": {
+        SystemSettingsCache.put(call.arguments(), result);
+        break;
+      }
+      case "getSystemSettings": {
+        SystemSettingsCache.get(call.arguments(), result);
         break;
       }
       case "home": {
@@ -221,9 +304,26 @@ public class RideDevicePolicyPlugin extends DeviceAdminReceiver
         result.success(null);
         break;
       }
+      case "setWindowEventFilter": {
+        // [coalesceMillis, ignoredPackages]
+        final List<Object> arguments = call.arguments();
+        @SuppressWarnings("unchecked")
+        final List<String> ignoredPackages = (List<String>) arguments.get(1);
+        RideAccessibilityService.windowEventFilter.configure(
+            ((Number) arguments.get(0)).longValue(), ignoredPackages);
+        result.success(null);
+        break;
+      }
       case "setVolume": {
-        final double volume = call.arguments();
-        audioManager.setStreamVolume(AudioManager.STREAM_MUSIC, (int)Math.ceil(volume * maxVolume), 0);
+        // Completes once the target is accepted; it is applied at a bounded rate.
+        VolumeController.setTarget(call.arguments());
+        result.success(null);
+        break;
+      }
+      case "configureVolume": {
+        // [minIntervalMillis, ramp]
+        final List<Object> arguments = call.arguments();
+        VolumeController.configure(((Number) arguments.get(0)).longValue(), (Boolean) arguments.get(1));
         result.success(null);
         break;
       }
@@ -234,17 +334,43 @@ public class RideDevicePolicyPlugin extends DeviceAdminReceiver
 
   @Override
   public void onListen(Object arguments, EventSink events) {
-    RideAccessibilityService.eventSink = events;
+    RideAccessibilityService.windowEventFilter.setSink(events);
   }
 
   @Override
   public void onCancel(Object arguments) {
-    RideAccessibilityService.eventSink = null;
+    RideAccessibilityService.windowEventFilter.setSink(null);
   }
 
   @Override
   public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
     channel.setMethodCallHandler(null);
     windowEvents.setStreamHandler(null);
+    permissionEvents.setStreamHandler(null);
+    if (permissionSink != null) {
+      PermissionMonitor.removeSink(permissionSink);
+      permissionSink = null;
+    }
+    PermissionMonitor.detach();
+
+    systemSettingEvents.setStreamHandler(null);
+    if (systemSettingSink != null) {
+      SystemSettingsCache.removeSink(systemSettingSink);
+      systemSettingSink = null;
+    }
+    SystemSettingsCache.detach();
+
+    volumeEvents.setStreamHandler(null);
+    if (volumeSink != null) {
+      VolumeController.removeSink(volumeSink);
+      volumeSink = null;
+    }
+    VolumeController.detach();
+
+    screenEvents.setStreamHandler(null);
+    if (screenSink != null) {
+      ScreenStateMonitor.removeSink(screenSink);
+      screenSink = null;
+    }
   }
 }
@@ -0,0 +1,130 @@
+package io.baku.ride_device_policy;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.PowerManager;
+import android.view.Display;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.flutter.plugin.common.EventChannel.EventSink;
+
+/**
+ * Publishes the default display and power state whenever it changes, and the current state to each
+ * new sink.
+ * <p>
+ * Power broadcasts often arrive before the display has finished changing state, so display changes
+ * are listened to as well. The receiver and listener are only registered while at least one sink is
+ * listening. Must be used from the main thread.
+ */
+class ScreenStateMonitor {
+  private static final Set<EventSink> sinks = new LinkedHashSet<>();
+
+  private static Context context;
+  private static PowerManager powerManager;
+  private static DisplayManager displayManager;
+
+  private static Map<String, Object> lastState;
+
+  private static final BroadcastReceiver receiver = new BroadcastReceiver() {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+      publishIfChanged();
+    }
+  };
+
+  private static final DisplayManager.DisplayListener displayListener =
+      new DisplayManager.DisplayListener() {
+        @Override
+        public void onDisplayAdded(int displayId) {
+        }
+
+        @Override
+        public void onDisplayRemoved(int displayId) {
+        }
+
+        @Override
+        public void onDisplayChanged(int displayId) {
+          if (displayId == Display.DEFAULT_DISPLAY) {
+            publishIfChanged();
+          }
+        }
+      };
+
+  private static void publishIfChanged() {
+    final Map<String, Object> state = readState();
+    if (!state.equals(lastState)) {
+      lastState = state;
+      for (final EventSink sink : sinks) {
+        sink.success(state);
+      }
+    }
+  }
+
+  static void addSink(Context context, EventSink sink) {
+    if (sinks.isEmpty()) {
+      ScreenStateMonitor.context = context.getApplicationContext();
+      powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+      displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+
+      final IntentFilter filter = new IntentFilter();
+      filter.addAction(Intent.ACTION_SCREEN_ON);
+      filter.addAction(Intent.ACTION_SCREEN_OFF);
+      if (Build.VERSION.SDK_INT >= 23) {
+        filter.addAction(PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED);
+      }
+      ScreenStateMonitor.context.registerReceiver(receiver, filter);
+      // Null handler: callbacks arrive on this (main) thread's looper.
+      displayManager.registerDisplayListener(displayListener, null);
+
+      // Broadcasts don't cover changes while unregistered.
+      lastState = readState();
+    }
+    sinks.add(sink);
+    sink.success(lastState);
+  }
+
+  static void removeSink(EventSink sink) {
+    if (sinks.remove(sink) && sinks.isEmpty()) {
+      context.unregisterReceiver(receiver);
+      displayManager.unregisterDisplayListener(displayListener);
+      context = null;
+      lastState = null;
+    }
+  }
+
+  private static String displayState() {
+    final Display display = displayManager.getDisplay(Display.DEFAULT_DISPLAY);
+    if (display == null) {
+      return "unknown";
+    }
+    switch (display.getState()) {
+      case Display.STATE_ON:
+      case Display.STATE_VR:
+        return "on";
+      case Display.STATE_OFF:
+        return "off";
+      case Display.STATE_DOZE:
+      case Display.STATE_DOZE_SUSPEND:
+      case Display.STATE_ON_SUSPEND:
+        return "doze";
+      default:
+        return "unknown";
+    }
+  }
+
+  private static Map<String, Object> readState() {
+    final Map<String, Object> state = new HashMap<>();
+    state.put("display", displayState());
+    state.put("interactive", powerManager.isInteractive());
+    state.put("deviceIdle", Build.VERSION.SDK_INT >= 23 && powerManager.isDeviceIdleMode());
+    return state;
+  }
+}
@@ -0,0 +1,177 @@
+package io.baku.ride_device_policy;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.flutter.plugin.common.EventChannel.EventSink;
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * A read-through cache of {@link Settings.System}, invalidated by a content observer. Reads and
+ * writes run in batches on a background thread, and results are completed on the main thread.
+ * <p>
+ * The cache is only kept while at least one plugin is attached. Apart from the executor, must be
+ * used from the main thread.
+ */
+class SystemSettingsCache {
+  private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  /**
+   * Cached values, which may be null. Guarded by itself since it's read on the executor and
+   * invalidated on the main thread.
+   */
+  private static final Map<String, String> cache = new HashMap<>();
+  /**
+   * Incremented on each invalidation so that a read that raced with one isn't cached.
+   */
+  private static int generation;
+  private static final Set<EventSink> sinks = new LinkedHashSet<>();
+
+  private static ContentResolver contentResolver;
+  private static int attachCount;
+
+  private static final ContentObserver observer = new ContentObserver(mainHandler) {
+    @Override
+    public void onChange(boolean selfChange) {
+      onChange(selfChange, null);
+    }
+
+    @Override
+    public void onChange(boolean selfChange, @Nullable Uri uri) {
+      final String key = uri == null ? null : uri.getLastPathSegment();
+      if (key == null || !uri.getPath().startsWith(Settings.System.CONTENT_URI.getPath() + "/")) {
+        // We can't tell what changed.
+        synchronized (cache) {
+          cache.clear();
+          ++generation;
+        }
+        return;
+      }
+
+      synchronized (cache) {
+        cache.remove(key);
+        ++generation;
+      }
+      for (final EventSink sink : sinks) {
+        sink.success(key);
+      }
+    }
+  };
+
+  static void attach(Context context) {
+    if (attachCount++ > 0) {
+      return;
+    }
+    contentResolver = context.getContentResolver();
+    contentResolver.registerContentObserver(Settings.System.CONTENT_URI, true, observer);
+  }
+
+  static void detach() {
+    if (--attachCount > 0) {
+      return;
+    }
+    contentResolver.unregisterContentObserver(observer);
+    contentResolver = null;
+    sinks.clear();
+    synchronized (cache) {
+      cache.clear();
+      ++generation;
+    }
+  }
+
+  static void addSink(EventSink sink) {
+    sinks.add(sink);
+  }
+
+  static void removeSink(EventSink sink) {
+    sinks.remove(sink);
+  }
+
+  /**
+   * Completes {@code result} with a map from each key to its value, or null if it is not set.
+   */
+  static void get(List<String> keys, Result result) {
+    final ContentResolver contentResolver = SystemSettingsCache.contentResolver;
+    executor.execute(() -> {
+      final Map<String, String> values = new HashMap<>();
+      try {
+        for (final String key : keys) {
+          values.put(key, read(contentResolver, key));
+        }
+      } catch (RuntimeException e) {
+        // For example, an invalid key. Whatever goes wrong, the result has to complete.
+        mainHandler.post(() -> result.error("failed", e.toString(), null));
+        return;
+      }
+      mainHandler.post(() -> result.success(values));
+    });
+  }
+
+  /**
+   * Writes all of {@code values}, completing {@code result} with an error listing the keys that
+   * could not be written, if any.
+   */
+  static void put(Map<String, String> values, Result result) {
+    final ContentResolver contentResolver = SystemSettingsCache.contentResolver;
+    executor.execute(() -> {
+      final List<String> failedKeys = new ArrayList<>();
+      try {
+        for (final Map.Entry<String, String> entry : values.entrySet()) {
+          if (Settings.System.putString(contentResolver, entry.getKey(), entry.getValue())) {
+            synchronized (cache) {
+              cache.put(entry.getKey(), entry.getValue());
+            }
+          } else {
+            failedKeys.add(entry.getKey());
+          }
+        }
+      } catch (RuntimeException e) {
+        // SecurityException without WRITE_SETTINGS, or IllegalArgumentException for an invalid
+        // key. Keys before the failure may have been written.
+        mainHandler.post(() -> result.error("failed", e.toString(), null));
+        return;
+      }
+      mainHandler.post(() -> {
+        if (failedKeys.isEmpty()) {
+          result.success(null);
+        } else {
+          result.error("failed", "android.provider.Settings.System.putString failed", failedKeys);
+        }
+      });
+    });
+  }
+
+  private static String read(ContentResolver contentResolver, String key) {
+    final int readGeneration;
+    synchronized (cache) {
+      if (cache.containsKey(key)) {
+        return cache.get(key);
+      }
+      readGeneration = generation;
+    }
+    final String value = Settings.System.getString(contentResolver, key);
+    synchronized (cache) {
+      if (readGeneration == generation) {
+        cache.put(key, value);
+      }
+    }
+    return value;
+  }
+}
@@ -0,0 +1,161 @@
+package io.baku.ride_device_policy;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.media.AudioManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import io.flutter.plugin.common.EventChannel.EventSink;
+
+/**
+ * Applies music stream volume targets at a bounded rate. Targets can be set at any rate; only the
+ * latest is applied, optionally ramping one step at a time. Actual volume changes from any source
+ * are published to sinks as normalized values.
+ * <p>
+ * Only active while at least one plugin is attached. Must be used from the main thread.
+ */
+class VolumeController {
+  static final long DEFAULT_MIN_INTERVAL_MILLIS = 50;
+
+  // Hidden AudioManager extras.
+  private static final String
+      EXTRA_VOLUME_STREAM_TYPE = "android.media.EXTRA_VOLUME_STREAM_TYPE",
+      EXTRA_VOLUME_STREAM_VALUE = "android.media.EXTRA_VOLUME_STREAM_VALUE";
+
+  private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private static final Set<EventSink> sinks = new LinkedHashSet<>();
+
+  private static Context context;
+  private static AudioManager audioManager;
+  private static int attachCount;
+
+  private static int maxVolume;
+  private static long minIntervalMillis = DEFAULT_MIN_INTERVAL_MILLIS;
+  private static boolean ramp;
+
+  private static int currentVolume, targetVolume = -1;
+  private static long lastAppliedMillis;
+  private static boolean isApplyScheduled;
+
+  private static final Runnable apply = VolumeController::apply;
+
+  private static final BroadcastReceiver receiver = new BroadcastReceiver() {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+      if (intent.getIntExtra(EXTRA_VOLUME_STREAM_TYPE, -1) != AudioManager.STREAM_MUSIC) {
+        return;
+      }
+      final int volume = intent.getIntExtra(EXTRA_VOLUME_STREAM_VALUE, -1);
+      if (volume >= 0 && volume != currentVolume) {
+        currentVolume = volume;
+        notifySinks();
+      }
+    }
+  };
+
+  static void attach(Context context) {
+    if (attachCount++ > 0) {
+      return;
+    }
+    VolumeController.context = context.getApplicationContext();
+    audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+    maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC);
+    currentVolume = audioManager.getStreamVolume(AudioManager.STREAM_MUSIC);
+    VolumeController.context.registerReceiver(
+        receiver, new IntentFilter("android.media.VOLUME_CHANGED_ACTION"));
+  }
+
+  static void detach() {
+    if (--attachCount > 0) {
+      return;
+    }
+    context.unregisterReceiver(receiver);
+    mainHandler.removeCallbacks(apply);
+    isApplyScheduled = false;
+    targetVolume = -1;
+    lastAppliedMillis = 0;
+    sinks.clear();
+    audioManager = null;
+    context = null;
+  }
+
+  static void configure(long minIntervalMillis, boolean ramp) {
+    VolumeController.minIntervalMillis = minIntervalMillis;
+    VolumeController.ramp = ramp;
+  }
+
+  static void addSink(EventSink sink) {
+    sinks.add(sink);
+    sink.success(normalize(currentVolume));
+  }
+
+  static void removeSink(EventSink sink) {
+    sinks.remove(sink);
+  }
+
+  /**
+   * Sets the volume to approach, from 0 to 1. Supersedes any target that hasn't been reached yet.
+   */
+  static void setTarget(double value) {
+    targetVolume = (int) Math.ceil(value * maxVolume);
+    schedule();
+  }
+
+  private static void schedule() {
+    if (isApplyScheduled || targetVolume < 0 || targetVolume == currentVolume) {
+      return;
+    }
+    isApplyScheduled = true;
+    final long delay = lastAppliedMillis + minIntervalMillis - SystemClock.uptimeMillis();
+    if (delay > 0) {
+      mainHandler.postDelayed(apply, delay);
+    } else {
+      mainHandler.post(apply);
+    }
+  }
+
+  private static void apply() {
+    isApplyScheduled = false;
+    if (audioManager == null || targetVolume < 0 || targetVolume == currentVolume) {
+      return;
+    }
+
+    final int volume = ramp ?
+        currentVolume + Integer.signum(targetVolume - currentVolume) :
+        targetVolume;
+    audioManager.setStreamVolume(AudioManager.STREAM_MUSIC, volume, 0);
+    lastAppliedMillis = SystemClock.uptimeMillis();
+
+    // The broadcast will arrive later, but track the volume now so that ramps can proceed. Read it
+    // back rather than assume the request took, since it can be ignored or clamped, for example on
+    // fixed-volume devices or in Do Not Disturb. Publish even if nothing changed so that sinks
+    // that anticipated the target are corrected.
+    currentVolume = audioManager.getStreamVolume(AudioManager.STREAM_MUSIC);
+    notifySinks();
+
+    if (currentVolume != volume || currentVolume == targetVolume) {
+      // Either done, or the device won't go where we asked, so don't keep asking.
+      targetVolume = -1;
+    } else {
+      schedule();
+    }
+  }
+
+  private static double normalize(int volume) {
+    return maxVolume == 0 ? 0 : (double) volume / maxVolume;
+  }
+
+  private static void notifySinks() {
+    final double value = normalize(currentVolume);
+    for (final EventSink sink : sinks) {
+      sink.success(value);
+    }
+  }
+}
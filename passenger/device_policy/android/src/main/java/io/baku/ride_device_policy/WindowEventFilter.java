@@ -0,0 +1,87 @@
+package io.baku.ride_device_policy;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.accessibility.AccessibilityEvent;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import io.flutter.plugin.common.EventChannel.EventSink;
+
+/**
+ * Reduces the accessibility event stream to foreground package transitions. Packages are emitted
+ * once they have been in the foreground for {@link #coalesceMillis} without another transition, and
+ * only if they differ from the last package emitted.
+ * <p>
+ * Must be used from the main thread.
+ */
+class WindowEventFilter {
+  static final long DEFAULT_COALESCE_MILLIS = 250;
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Runnable emit = this::emit;
+
+  private long coalesceMillis = DEFAULT_COALESCE_MILLIS;
+  private final Set<String> ignoredPackages = new HashSet<>();
+
+  private EventSink sink;
+  private String pendingPackage, lastPackage;
+
+  void configure(long coalesceMillis, Collection<String> ignoredPackages) {
+    this.coalesceMillis = coalesceMillis;
+    this.ignoredPackages.clear();
+    this.ignoredPackages.addAll(ignoredPackages);
+  }
+
+  /**
+   * Sets the sink to emit to. A new sink receives the next transition even if it is to the package
+   * that was last emitted to the previous sink.
+   */
+  void setSink(EventSink sink) {
+    this.sink = sink;
+    lastPackage = null;
+    if (sink == null) {
+      handler.removeCallbacks(emit);
+      pendingPackage = null;
+    }
+  }
+
+  void onAccessibilityEvent(AccessibilityEvent event) {
+    // Content, scroll and focus events can arrive hundreds of times per second, so only window
+    // state changes are forwarded, even if the service config is broadened.
+    if (event.getEventType() == AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED) {
+      onWindowStateChanged(event.getPackageName());
+    }
+  }
+
+  void onWindowStateChanged(CharSequence packageName) {
+    if (sink == null || packageName == null) {
+      return;
+    }
+    final String name = packageName.toString();
+    if (ignoredPackages.contains(name)) {
+      return;
+    }
+
+    pendingPackage = name;
+    handler.removeCallbacks(emit);
+    if (coalesceMillis <= 0) {
+      emit();
+    } else {
+      handler.postDelayed(emit, coalesceMillis);
+    }
+  }
+
+  private void emit() {
+    if (sink == null || pendingPackage == null) {
+      return;
+    }
+    if (!pendingPackage.equals(lastPackage)) {
+      lastPackage = pendingPackage;
+      sink.success(pendingPackage);
+    }
+    pendingPackage = null;
+  }
+}
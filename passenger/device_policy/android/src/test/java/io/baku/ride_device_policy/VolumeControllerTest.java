@@ -0,0 +1,218 @@
+package io.baku.ride_device_policy;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.media.AudioManager;
+import android.os.Looper;
+import io.flutter.plugin.common.EventChannel.EventSink;
+import java.time.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class VolumeControllerTest {
+  private static final int MAX_VOLUME = 10;
+  private static final long MIN_INTERVAL_MILLIS = 50;
+
+  private Context context;
+  private AudioManager audioManager;
+  private EventSink sink;
+  private BroadcastReceiver receiver;
+
+  /**
+   * The device's music stream volume.
+   */
+  private int volume = 5;
+  /**
+   * Whether the device ignores volume changes, as fixed-volume devices do.
+   */
+  private boolean isVolumeFixed;
+
+  @Before
+  public void setUp() {
+    context = mock(Context.class);
+    audioManager = mock(AudioManager.class);
+    when(context.getApplicationContext()).thenReturn(context);
+    when(context.getSystemService(Context.AUDIO_SERVICE)).thenReturn(audioManager);
+    when(audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC)).thenReturn(MAX_VOLUME);
+    when(audioManager.getStreamVolume(AudioManager.STREAM_MUSIC)).thenAnswer(i -> volume);
+    doAnswer(i -> {
+      if (!isVolumeFixed) {
+        volume = i.getArgument(1);
+      }
+      return null;
+    }).when(audioManager).setStreamVolume(eq(AudioManager.STREAM_MUSIC), anyInt(), anyInt());
+
+    // Start well past the interval so that the first change isn't deferred.
+    idleFor(1000);
+
+    VolumeController.attach(context);
+    VolumeController.configure(MIN_INTERVAL_MILLIS, false);
+    final ArgumentCaptor<BroadcastReceiver> receiverCaptor =
+        ArgumentCaptor.forClass(BroadcastReceiver.class);
+    verify(context).registerReceiver(receiverCaptor.capture(), any(IntentFilter.class));
+    receiver = receiverCaptor.getValue();
+
+    sink = mock(EventSink.class);
+    VolumeController.addSink(sink);
+    verify(sink).success(.5);
+    clearInvocations(sink);
+  }
+
+  @After
+  public void tearDown() {
+    VolumeController.detach();
+  }
+
+  private static void idleFor(long millis) {
+    shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+  }
+
+  private static void idle() {
+    shadowOf(Looper.getMainLooper()).idle();
+  }
+
+  @Test
+  public void setTarget_lastWriterWins() {
+    VolumeController.setTarget(.2);
+    VolumeController.setTarget(.9);
+    VolumeController.setTarget(.7);
+    idle();
+
+    verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 7, 0);
+    verify(audioManager, never()).setStreamVolume(eq(AudioManager.STREAM_MUSIC), eq(2), anyInt());
+    verify(audioManager, never()).setStreamVolume(eq(AudioManager.STREAM_MUSIC), eq(9), anyInt());
+    verify(sink).success(.7);
+  }
+
+  @Test
+  public void setTarget_withinInterval_isDeferredAndCoalesced() {
+    VolumeController.setTarget(.6);
+    idle();
+    verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 6, 0);
+
+    VolumeController.setTarget(.8);
+    VolumeController.setTarget(.3);
+    idleFor(MIN_INTERVAL_MILLIS - 1);
+    verify(audioManager, never()).setStreamVolume(eq(AudioManager.STREAM_MUSIC), eq(3), anyInt());
+
+    idleFor(1);
+    verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 3, 0);
+    verify(audioManager, never()).setStreamVolume(eq(AudioManager.STREAM_MUSIC), eq(8), anyInt());
+  }
+
+  @Test
+  public void setTarget_currentVolume_doesNothing() {
+    VolumeController.setTarget(.5);
+    idle();
+    verify(audioManager, never()).setStreamVolume(anyInt(), anyInt(), anyInt());
+    verify(sink, never()).success(any());
+  }
+
+  @Test
+  public void ramp_stepsOncePerInterval() {
+    VolumeController.configure(MIN_INTERVAL_MILLIS, true);
+    VolumeController.setTarget(.8);
+
+    idle();
+    verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 6, 0);
+    verify(audioManager, never()).setStreamVolume(eq(AudioManager.STREAM_MUSIC), eq(7), anyInt());
+
+    idleFor(MIN_INTERVAL_MILLIS);
+    verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 7, 0);
+    idleFor(MIN_INTERVAL_MILLIS);
+    verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 8, 0);
+
+    idleFor(MIN_INTERVAL_MILLIS * 10);
+    final InOrder inOrder = inOrder(sink);
+    inOrder.verify(sink).success(.6);
+    inOrder.verify(sink).success(.7);
+    inOrder.verify(sink).success(.8);
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  @Test
+  public void ramp_retargetReversesFromCurrentStep() {
+    VolumeController.configure(MIN_INTERVAL_MILLIS, true);
+    VolumeController.setTarget(.9);
+    idle();
+    idleFor(MIN_INTERVAL_MILLIS);
+    // Now at 7.
+
+    VolumeController.setTarget(.5);
+    idleFor(MIN_INTERVAL_MILLIS);
+    idleFor(MIN_INTERVAL_MILLIS);
+    idleFor(MIN_INTERVAL_MILLIS * 10);
+
+    final InOrder inOrder = inOrder(audioManager);
+    inOrder.verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 6, 0);
+    inOrder.verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 7, 0);
+    inOrder.verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 6, 0);
+    inOrder.verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 5, 0);
+    verify(audioManager, never()).setStreamVolume(eq(AudioManager.STREAM_MUSIC), eq(4), anyInt());
+    verify(audioManager, never()).setStreamVolume(eq(AudioManager.STREAM_MUSIC), eq(8), anyInt());
+  }
+
+  @Test
+  public void ignoredChange_publishesActualVolumeAndStops() {
+    isVolumeFixed = true;
+    VolumeController.configure(MIN_INTERVAL_MILLIS, true);
+    VolumeController.setTarget(1);
+    idleFor(MIN_INTERVAL_MILLIS * 10);
+
+    verify(audioManager).setStreamVolume(eq(AudioManager.STREAM_MUSIC), anyInt(), anyInt());
+    verify(sink).success(.5);
+    verify(sink, never()).success(.6);
+  }
+
+  @Test
+  public void clampedChange_publishesActualVolume() {
+    doAnswer(i -> {
+      volume = Math.min((int) i.getArgument(1), 7);
+      return null;
+    }).when(audioManager).setStreamVolume(eq(AudioManager.STREAM_MUSIC), anyInt(), anyInt());
+
+    VolumeController.setTarget(1);
+    idleFor(MIN_INTERVAL_MILLIS * 10);
+
+    verify(audioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 10, 0);
+    verify(sink).success(.7);
+    verify(sink, never()).success(1.0);
+  }
+
+  @Test
+  public void volumeChangedBroadcast_publishesNewVolume() {
+    final Intent intent = new Intent("android.media.VOLUME_CHANGED_ACTION")
+        .putExtra("android.media.EXTRA_VOLUME_STREAM_TYPE", AudioManager.STREAM_MUSIC)
+        .putExtra("android.media.EXTRA_VOLUME_STREAM_VALUE", 3);
+    receiver.onReceive(context, intent);
+    verify(sink).success(.3);
+
+    // Other streams are ignored.
+    receiver.onReceive(context, new Intent("android.media.VOLUME_CHANGED_ACTION")
+        .putExtra("android.media.EXTRA_VOLUME_STREAM_TYPE", AudioManager.STREAM_RING)
+        .putExtra("android.media.EXTRA_VOLUME_STREAM_VALUE", 9));
+    verify(sink, never()).success(.9);
+  }
+}
@@ -0,0 +1,173 @@
+package io.baku.ride_device_policy;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+import android.view.accessibility.AccessibilityEvent;
+import io.flutter.plugin.common.EventChannel.EventSink;
+import java.time.Duration;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class WindowEventFilterTest {
+  private static final long COALESCE_MILLIS = WindowEventFilter.DEFAULT_COALESCE_MILLIS;
+
+  private WindowEventFilter filter;
+  private EventSink sink;
+
+  @Before
+  public void setUp() {
+    filter = new WindowEventFilter();
+    sink = mock(EventSink.class);
+    filter.setSink(sink);
+  }
+
+  private static void idleFor(long millis) {
+    shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+  }
+
+  private static AccessibilityEvent event(int type, String packageName) {
+    final AccessibilityEvent event = AccessibilityEvent.obtain(type);
+    event.setPackageName(packageName);
+    return event;
+  }
+
+  private void windowStateChanged(String packageName) {
+    filter.onAccessibilityEvent(event(AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED, packageName));
+  }
+
+  @Test
+  public void burst_emitsOnlyLastPackageAfterQuietPeriod() {
+    windowStateChanged("a");
+    idleFor(50);
+    windowStateChanged("b");
+    idleFor(50);
+    windowStateChanged("c");
+
+    idleFor(COALESCE_MILLIS - 1);
+    verifyNoInteractions(sink);
+
+    idleFor(1);
+    verify(sink).success("c");
+    verifyNoMoreInteractions(sink);
+  }
+
+  @Test
+  public void eachTransition_restartsQuietPeriod() {
+    windowStateChanged("a");
+    idleFor(COALESCE_MILLIS - 50);
+    windowStateChanged("b");
+
+    idleFor(50);
+    verifyNoInteractions(sink);
+
+    idleFor(COALESCE_MILLIS - 50);
+    verify(sink).success("b");
+    verifyNoMoreInteractions(sink);
+  }
+
+  @Test
+  public void duplicates_areDropped() {
+    windowStateChanged("a");
+    idleFor(COALESCE_MILLIS);
+    windowStateChanged("a");
+    idleFor(COALESCE_MILLIS);
+    // A burst that ends where it started is not a transition either.
+    windowStateChanged("b");
+    windowStateChanged("a");
+    idleFor(COALESCE_MILLIS);
+    windowStateChanged("b");
+    idleFor(COALESCE_MILLIS);
+    windowStateChanged("a");
+    idleFor(COALESCE_MILLIS);
+
+    final InOrder inOrder = inOrder(sink);
+    inOrder.verify(sink).success("a");
+    inOrder.verify(sink).success("b");
+    inOrder.verify(sink).success("a");
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  @Test
+  public void otherEventTypes_areIgnored() {
+    final int[] types = {
+        AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED,
+        AccessibilityEvent.TYPE_VIEW_SCROLLED,
+        AccessibilityEvent.TYPE_VIEW_FOCUSED,
+        AccessibilityEvent.TYPE_VIEW_CLICKED,
+        AccessibilityEvent.TYPE_WINDOWS_CHANGED,
+    };
+    for (final int type : types) {
+      filter.onAccessibilityEvent(event(type, "a"));
+    }
+    idleFor(COALESCE_MILLIS);
+    verifyNoInteractions(sink);
+
+    windowStateChanged("a");
+    idleFor(COALESCE_MILLIS);
+    verify(sink).success("a");
+  }
+
+  @Test
+  public void otherEventTypes_doNotDelayPendingTransition() {
+    windowStateChanged("a");
+    idleFor(COALESCE_MILLIS - 1);
+    filter.onAccessibilityEvent(event(AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED, "b"));
+    idleFor(1);
+    verify(sink).success("a");
+    verifyNoMoreInteractions(sink);
+  }
+
+  @Test
+  public void ignoredPackages_areDropped() {
+    filter.configure(COALESCE_MILLIS, Collections.singleton("systemui"));
+    windowStateChanged("a");
+    idleFor(COALESCE_MILLIS);
+    windowStateChanged("systemui");
+    idleFor(COALESCE_MILLIS);
+
+    verify(sink).success("a");
+    verify(sink, never()).success("systemui");
+  }
+
+  @Test
+  public void zeroCoalesce_emitsImmediately() {
+    filter.configure(0, Collections.emptySet());
+    windowStateChanged("a");
+    verify(sink).success("a");
+  }
+
+  @Test
+  public void clearingSink_dropsPendingTransition() {
+    windowStateChanged("a");
+    filter.setSink(null);
+    idleFor(COALESCE_MILLIS);
+    verifyNoInteractions(sink);
+  }
+
+  @Test
+  public void newSink_receivesRepeatedPackage() {
+    windowStateChanged("a");
+    idleFor(COALESCE_MILLIS);
+    verify(sink).success("a");
+
+    final EventSink next = mock(EventSink.class);
+    filter.setSink(next);
+    windowStateChanged("a");
+    idleFor(COALESCE_MILLIS);
+    verify(next).success("a");
+  }
+}
@@ -8,19 +8,116 @@ final class SystemSetting {
   static const screenOffTimeout = 'screen_off_timeout';
 }
 
+class PermissionStatus {
+  final bool admin, accessibility, overlay;
+
+  const PermissionStatus({
+    required this.admin,
+    required this.accessibility,
+    required this.overlay,
+  });
+
+  PermissionStatus.fromMap(Map map)
+      : admin = map['admin'] as bool,
+        accessibility = map['accessibility'] as bool,
+        overlay = map['overlay'] as bool;
+
+  @override
+  bool operator ==(Object other) =>
+      other is PermissionStatus &&
+      other.admin == admin &&
+      other.accessibility == accessibility &&
+      other.overlay == overlay;
+
+  @override
+  int get hashCode => Object.hash(admin, accessibility, overlay);
+}
+
+enum DisplayState { unknown, off, on, doze }
+
+class ScreenState {
+  final DisplayState display;
+
+  /// Whether the device is awake enough for the user to interact with it.
+  final bool interactive;
+
+  /// Whether the device is in idle (doze) mode.
+  final bool deviceIdle;
+
+  const ScreenState({
+    required this.display,
+    required this.interactive,
+    required this.deviceIdle,
+  });
+
+  ScreenState.fromMap(Map map)
+      : display = DisplayState.values.byName(map['display'] as String),
+        interactive = map['interactive'] as bool,
+        deviceIdle = map['deviceIdle'] as bool;
+
+  /// Whether the screen is on and showing interactive content, as opposed to
+  /// off or showing an always-on display.
+  bool get isOn => interactive && display == DisplayState.on;
+
+  @override
+  bool operator ==(Object other) =>
+      other is ScreenState &&
+      other.display == display &&
+      other.interactive == interactive &&
+      other.deviceIdle == deviceIdle;
+
+  @override
+  int get hashCode => Object.hash(display, interactive, deviceIdle);
+}
+
 class RideDevicePolicy {
   static T? _mapNonNull<T>(String? value, T Function(String) map) =>
       value == null ? null : map(value);
 
+  /// The package name of the foreground app, each time it changes.
+  ///
+  /// Transitions are coalesced natively; see [setWindowEventFilter].
   static Stream<String> get windowEvents =>
       RideDevicePolicyPlatform.instance.windowEvents;
 
+  /// Configures how [windowEvents] are filtered. A package is reported once
+  /// it has been in the foreground for [coalesce] without another transition,
+  /// and only if it differs from the last package reported. Packages in
+  /// [ignoredPackages] are never reported and don't interrupt a pending
+  /// transition.
+  static Future<void> setWindowEventFilter({
+    Duration coalesce = const Duration(milliseconds: 250),
+    Iterable<String> ignoredPackages = const [],
+  }) =>
+      RideDevicePolicyPlatform.instance
+          .setWindowEventFilter(coalesce, ignoredPackages);
+
+  /// The current device admin, accessibility service and overlay permission
+  /// state, followed by each change to it.
+  static Stream<PermissionStatus> get permissions =>
+      RideDevicePolicyPlatform.instance.permissions;
+
   static Future<bool> requestAdminIfNeeded([String? explanation]) =>
       RideDevicePolicyPlatform.instance.requestAdminIfNeeded(explanation);
 
   static Future<bool> requestAccessibilityIfNeeded() =>
       RideDevicePolicyPlatform.instance.requestAccessibilityIfNeeded();
 
+  /// Reads several [SystemSetting]s in one platform call. Values are cached
+  /// natively until they change.
+  static Future<Map<String, String?>> getSystemSettings(
+          Iterable<String> keys) =>
+      RideDevicePolicyPlatform.instance.getSystemSettings(keys);
+
+  /// Writes several [SystemSetting]s in one platform call.
+  static Future<void> putSystemSettings(Map<String, String?> values) =>
+      RideDevicePolicyPlatform.instance.putSystemSettings(values);
+
+  /// The key of each [SystemSetting] that changes, including changes made by
+  /// other apps.
+  static Stream<String> get systemSettingChanges =>
+      RideDevicePolicyPlatform.instance.systemSettingChanges;
+
   static Future<void> setScreenBrightness(int? brightness) =>
       RideDevicePolicyPlatform.instance.setSystemSetting(
         SystemSetting.screenBrightness,
@@ -46,6 +143,26 @@ class RideDevicePolicy {
   static Future<void> home() => RideDevicePolicyPlatform.instance.home();
   static Future<void> wakeUp() => RideDevicePolicyPlatform.instance.wakeUp();
   static Future<void> lockNow() => RideDevicePolicyPlatform.instance.lockNow();
+
+  /// Sets the music stream volume, from 0 to 1. This can be called at any
+  /// rate; only the latest value is applied, at most once per the interval
+  /// set by [configureVolume]. Completes once the value has been accepted.
   static Future<void> setVolume(double value) =>
       RideDevicePolicyPlatform.instance.setVolume(value);
+
+  /// Sets how [setVolume] targets are applied. If [ramp] is set, the volume
+  /// steps towards the target one level per [minInterval] rather than jumping.
+  static Future<void> configureVolume({
+    Duration minInterval = const Duration(milliseconds: 50),
+    bool ramp = false,
+  }) =>
+      RideDevicePolicyPlatform.instance.configureVolume(minInterval, ramp);
+
+  /// The music stream volume, from 0 to 1, followed by each change to it from
+  /// any source.
+  static Stream<double> get volume => RideDevicePolicyPlatform.instance.volume;
+
+  /// The display and power state, followed by each change to it.
+  static Stream<ScreenState> get screenState =>
+      RideDevicePolicyPlatform.instance.screenState;
 }
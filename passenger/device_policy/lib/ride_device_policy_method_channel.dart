@@ -1,5 +1,6 @@
 import 'package:flutter/services.dart';
 
+import 'ride_device_policy.dart';
 import 'ride_device_policy_platform_interface.dart';
 
 /// An implementation of [RideDevicePolicyPlatform] that uses method channels.
@@ -7,11 +8,32 @@ class MethodChannelRideDevicePolicy extends RideDevicePolicyPlatform {
   static const methodChannel = MethodChannel('ride_device_policy');
   static const windowEventChannel =
       EventChannel('ride_device_policy.windowEvents');
+  static const permissionChannel =
+      EventChannel('ride_device_policy.permissions');
+  static const systemSettingChannel =
+      EventChannel('ride_device_policy.systemSettings');
+  static const volumeChannel = EventChannel('ride_device_policy.volume');
+  static const screenChannel = EventChannel('ride_device_policy.screen');
 
   @override
   late final Stream<String> windowEvents =
       windowEventChannel.receiveBroadcastStream().cast();
 
+  final _permissions = _StateChannel(
+      permissionChannel, (event) => PermissionStatus.fromMap(event as Map));
+  @override
+  Stream<PermissionStatus> get permissions => _permissions.stream;
+
+  @override
+  Future<void> setWindowEventFilter(
+    Duration coalesce,
+    Iterable<String> ignoredPackages,
+  ) =>
+      methodChannel.invokeMethod('setWindowEventFilter', [
+        coalesce.inMilliseconds,
+        ignoredPackages.toList(),
+      ]);
+
   @override
   Future<bool> requestAdminIfNeeded([String? explanation]) async =>
       await methodChannel.invokeMethod('requestAdminIfNeeded', explanation)
@@ -27,6 +49,17 @@ class MethodChannelRideDevicePolicy extends RideDevicePolicyPlatform {
   Future<String?> getSystemSetting(String setting) =>
       methodChannel.invokeMethod<String>('getSystemSetting', setting);
   @override
+  Future<Map<String, String?>> getSystemSettings(
+          Iterable<String> settings) async =>
+      (await methodChannel.invokeMapMethod<String, String?>(
+          'getSystemSettings', settings.toList()))!;
+  @override
+  Future<void> putSystemSettings(Map<String, String?> values) =>
+      methodChannel.invokeMethod('putSystemSettings', values);
+  @override
+  late final Stream<String> systemSettingChanges =
+      systemSettingChannel.receiveBroadcastStream().cast();
+  @override
   Future<void> home() => methodChannel.invokeMethod('home');
   @override
   Future<void> wakeUp() => methodChannel.invokeMethod('wakeUp');
@@ -35,4 +68,45 @@ class MethodChannelRideDevicePolicy extends RideDevicePolicyPlatform {
   @override
   Future<void> setVolume(double value) =>
       methodChannel.invokeMethod('setVolume', value);
+  @override
+  Future<void> configureVolume(Duration minInterval, bool ramp) => methodChannel
+      .invokeMethod('configureVolume', [minInterval.inMilliseconds, ramp]);
+
+  final _volume = _StateChannel(volumeChannel, (event) => event as double);
+  @override
+  Stream<double> get volume => _volume.stream;
+
+  final _screen = _StateChannel(
+      screenChannel, (event) => ScreenState.fromMap(event as Map));
+  @override
+  Stream<ScreenState> get screenState => _screen.stream;
+}
+
+/// An event channel whose platform side sends the current state when first
+/// listened to, followed by each change. Since that happens only once per
+/// platform subscription, later listeners are replayed the latest state.
+///
+/// The latest state is forgotten once every listener has cancelled, since the
+/// platform side stops listening too and sends fresh state to the next
+/// subscription.
+class _StateChannel<T> {
+  _StateChannel(EventChannel channel, T Function(dynamic) decode)
+      : _events = channel.receiveBroadcastStream().map(decode);
+
+  final Stream<T> _events;
+  T? _latest;
+  int _listeners = 0;
+
+  late final Stream<T> _tracked = _events.map((event) => _latest = event);
+
+  Stream<T> get stream async* {
+    ++_listeners;
+    try {
+      final latest = _latest;
+      if (latest != null) yield latest;
+      yield* _tracked;
+    } finally {
+      if (--_listeners == 0) _latest = null;
+    }
+  }
 }
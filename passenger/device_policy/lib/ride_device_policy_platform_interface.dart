@@ -1,5 +1,6 @@
 import 'package:plugin_platform_interface/plugin_platform_interface.dart';
 
+import 'ride_device_policy.dart';
 import 'ride_device_policy_method_channel.dart';
 
 abstract class RideDevicePolicyPlatform extends PlatformInterface {
@@ -24,13 +25,24 @@ abstract class RideDevicePolicyPlatform extends PlatformInterface {
   }
 
   Stream<String> get windowEvents;
+  Stream<PermissionStatus> get permissions;
+  Future<void> setWindowEventFilter(
+    Duration coalesce,
+    Iterable<String> ignoredPackages,
+  );
 
   Future<bool> requestAdminIfNeeded([String? explanation]);
   Future<bool> requestAccessibilityIfNeeded();
   Future<void> setSystemSetting(String setting, String? value);
   Future<String?> getSystemSetting(String setting);
+  Future<Map<String, String?>> getSystemSettings(Iterable<String> settings);
+  Future<void> putSystemSettings(Map<String, String?> values);
+  Stream<String> get systemSettingChanges;
   Future<void> home();
   Future<void> wakeUp();
   Future<void> lockNow();
   Future<void> setVolume(double value);
+  Future<void> configureVolume(Duration minInterval, bool ramp);
+  Stream<double> get volume;
+  Stream<ScreenState> get screenState;
 }
@@ -24,6 +24,18 @@ class FakeRideDevicePolicyPlatform extends Fake
 
   @override
   Future<String?> getSystemSetting(String setting) async => data[setting];
+
+  @override
+  Future<Map<String, String?>> getSystemSettings(
+          Iterable<String> settings) async =>
+      {for (final setting in settings) setting: data[setting]};
+
+  @override
+  Future<void> putSystemSettings(Map<String, String?> values) async {
+    for (final MapEntry(:key, :value) in values.entries) {
+      await setSystemSetting(key, value);
+    }
+  }
 }
 
 void main() {
@@ -48,5 +60,22 @@ void main() {
       expect(await RideDevicePolicy.getScreenOffTimeout(),
           const Duration(days: 1));
     });
+
+    test('batched system settings', () async {
+      await RideDevicePolicy.putSystemSettings({
+        SystemSetting.screenBrightness: '64',
+        SystemSetting.screenOffTimeout: null,
+      });
+      expect(
+        await RideDevicePolicy.getSystemSettings([
+          SystemSetting.screenBrightness,
+          SystemSetting.screenOffTimeout,
+        ]),
+        {
+          SystemSetting.screenBrightness: '64',
+          SystemSetting.screenOffTimeout: null,
+        },
+      );
+    });
   });
 }
@@ -0,0 +1,153 @@
+package io.baku.ride_launcher;
+
+import android.app.Application;
+import android.content.Intent;
+import android.os.Trace;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.baku.overlay_window.OverlayWindowPlugin;
+import io.baku.ride_device_policy.RideAccessibilityService;
+import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.FlutterEngineCache;
+import io.flutter.embedding.engine.dart.DartExecutor;
+import io.flutter.embedding.engine.renderer.FlutterRenderer;
+import io.flutter.embedding.engine.renderer.FlutterUiDisplayListener;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugin.common.EventChannel.EventSink;
+import io.flutter.plugin.common.EventChannel.StreamHandler;
+import io.flutter.plugin.common.MethodChannel;
+
+/**
+ * Starts the launcher engine at process start so that returning home after the activity is
+ * recreated doesn't wait on a cold engine boot.
+ */
+public class RideLauncherApplication extends Application implements StreamHandler {
+  static final String ENGINE_ID = "main";
+
+  /**
+   * Intents received while Dart isn't listening are held for the next listener, up to this many.
+   */
+  private static final int MAX_PENDING_INTENTS = 16;
+
+  private final ArrayDeque<Map<String, Object>> pendingIntents = new ArrayDeque<>();
+  private EventSink intents;
+
+  @Override
+  public void onCreate() {
+    super.onCreate();
+    StartupTrace.begin();
+    StartupTrace.mark(StartupTrace.APPLICATION_CREATE);
+    Trace.beginSection("RideLauncherApplication.onCreate");
+
+    OverlayWindowPlugin.setObserver(new OverlayWindowPlugin.Observer() {
+      @Override
+      public void onElevated(boolean isAccessibilityOverlay) {
+        StartupTrace.mark(StartupTrace.ELEVATED);
+      }
+
+      @Override
+      public void onWindowFirstFrame(int handle) {
+        StartupTrace.mark(StartupTrace.OVERLAY_FIRST_FRAME);
+      }
+    });
+
+    // Elevate OverlayWindowPlugin privileges to allow navigation bar overlays that respond to
+    // touch. This has to be settled before the engine starts creating overlays, and the process
+    // may start without an activity, for example when the service binds at boot.
+    if (RideAccessibilityService.instance == null) {
+      if (RideAccessibilityService.isEnabled(this)) {
+        // The service will connect shortly. If it doesn't, OverlayWindowPlugin times out.
+        OverlayWindowPlugin.expectElevation();
+      } else {
+        // Fall back to regular overlays until the user enables the service.
+        OverlayWindowPlugin.elevate(null);
+      }
+    }
+    // Registered for the life of the process, like the engine, so that every connection and
+    // disconnection reaches the overlays.
+    RideAccessibilityService.addConnectionListener(new RideAccessibilityService.ConnectionListener() {
+      @Override
+      public void onConnected(RideAccessibilityService service) {
+        StartupTrace.mark(StartupTrace.ACCESSIBILITY_CONNECTED);
+        OverlayWindowPlugin.elevate(service);
+      }
+
+      @Override
+      public void onDisconnected() {
+        OverlayWindowPlugin.elevate(null);
+      }
+    });
+
+    final FlutterEngine engine = new FlutterEngine(this);
+    final BinaryMessenger messenger = engine.getDartExecutor().getBinaryMessenger();
+    new EventChannel(messenger, "ride_launcher.intents").setStreamHandler(this);
+    new MethodChannel(messenger, "ride_launcher.startup").setMethodCallHandler((call, result) -> {
+      switch (call.method) {
+        case "mark":
+          StartupTrace.mark(call.arguments());
+          result.success(null);
+          break;
+        case "get":
+          result.success(StartupTrace.toMap());
+          break;
+        default:
+          result.notImplemented();
+      }
+    });
+
+    final FlutterRenderer renderer = engine.getRenderer();
+    renderer.addIsDisplayingFlutterUiListener(new FlutterUiDisplayListener() {
+      @Override
+      public void onFlutterUiDisplayed() {
+        renderer.removeIsDisplayingFlutterUiListener(this);
+        StartupTrace.mark(StartupTrace.FIRST_FRAME);
+      }
+
+      @Override
+      public void onFlutterUiNoLongerDisplayed() {
+      }
+    });
+
+    engine.getDartExecutor().executeDartEntrypoint(DartExecutor.DartEntrypoint.createDefault());
+    FlutterEngineCache.getInstance().put(ENGINE_ID, engine);
+
+    Trace.endSection();
+  }
+
+  /**
+   * Forwards an intent to Dart, or holds it until Dart listens. Must be called on the main thread.
+   */
+  void onIntent(Intent intent) {
+    final Map<String, Object> event = new HashMap<>();
+    event.put("action", intent.getAction());
+    event.put("categories", intent.getCategories() == null ?
+        new ArrayList<>() : new ArrayList<>(intent.getCategories()));
+
+    if (intents != null) {
+      intents.success(event);
+    } else {
+      if (pendingIntents.size() == MAX_PENDING_INTENTS) {
+        pendingIntents.remove();
+      }
+      pendingIntents.add(event);
+    }
+  }
+
+  @Override
+  public void onListen(Object arguments, EventSink events) {
+    intents = events;
+    while (!pendingIntents.isEmpty()) {
+      events.success(pendingIntents.remove());
+    }
+  }
+
+  @Override
+  public void onCancel(Object arguments) {
+    intents = null;
+  }
+}
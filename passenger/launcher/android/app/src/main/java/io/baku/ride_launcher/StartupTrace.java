@@ -0,0 +1,70 @@
+package io.baku.ride_launcher;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Startup milestones, in milliseconds since process start. Each milestone is recorded once, and
+ * also shows up in system traces as an instant {@code startup:<name>} section.
+ * <p>
+ * Must be used from the main thread.
+ */
+final class StartupTrace {
+  static final String
+      APPLICATION_CREATE = "applicationCreate",
+      ACTIVITY_CREATE = "activityCreate",
+      ENGINE_ATTACH = "engineAttach",
+      FIRST_FRAME = "firstFrame",
+      ACCESSIBILITY_CONNECTED = "accessibilityConnected",
+      ELEVATED = "elevated",
+      OVERLAY_FIRST_FRAME = "overlayFirstFrame",
+      CLIENT_CONNECTED = "clientConnected";
+
+  /**
+   * The async trace section spanning startup, which ends once the launcher is drawn and overlays
+   * can be created with their final window type.
+   */
+  private static final String STARTUP_SECTION = "launcher startup";
+  private static final int STARTUP_SECTION_COOKIE = 0;
+
+  private static final long processStartMillis = Build.VERSION.SDK_INT >= 24 ?
+      Process.getStartUptimeMillis() : SystemClock.uptimeMillis();
+  private static final Map<String, Long> marks = new LinkedHashMap<>();
+  private static boolean isInteractive;
+
+  private StartupTrace() {
+  }
+
+  static void begin() {
+    if (Build.VERSION.SDK_INT >= 29) {
+      Trace.beginAsyncSection(STARTUP_SECTION, STARTUP_SECTION_COOKIE);
+    }
+  }
+
+  static void mark(String name) {
+    if (marks.containsKey(name)) {
+      return;
+    }
+    marks.put(name, SystemClock.uptimeMillis() - processStartMillis);
+    Trace.beginSection("startup:" + name);
+    Trace.endSection();
+
+    if (!isInteractive && marks.containsKey(FIRST_FRAME) && marks.containsKey(ELEVATED)) {
+      isInteractive = true;
+      if (Build.VERSION.SDK_INT >= 29) {
+        Trace.endAsyncSection(STARTUP_SECTION, STARTUP_SECTION_COOKIE);
+      }
+      Log.i("ride_launcher", "Startup: " + marks);
+    }
+  }
+
+  static Map<String, Long> toMap() {
+    return new LinkedHashMap<>(marks);
+  }
+}
@@ -0,0 +1,279 @@
+import 'dart:async';
+import 'dart:io';
+import 'dart:typed_data';
+
+import 'package:path/path.dart' as path;
+import 'package:ride_asset_extractor/ride_asset_extractor.dart';
+import 'package:ride_shared/protocol.dart';
+
+import 'config.dart';
+
+enum AssetProgress {
+  /// More files are on their way.
+  pending,
+
+  /// Every file of the manifest is installed.
+  done,
+
+  /// Part of the download was lost or corrupt, and the client should report
+  /// its inventory again so that the hub resends it.
+  failed,
+}
+
+/// Installs assets pushed by the hub, per file or as a whole archive.
+///
+/// Files are downloaded into a staging directory under their hash, and each is
+/// moved into place once complete and verified, so the launcher never sees a
+/// partially written file and an interrupted download resumes where it left
+/// off. Operations run one at a time in the order they are called.
+class AssetInstaller {
+  final Config config;
+  final String root, staging;
+
+  Future<void> _tail = Future.value();
+
+  String? _version;
+  AssetManifest? _manifest;
+
+  /// Paths still to install, by hash.
+  final _pending = <String, List<String>>{};
+  final _sizes = <String, int>{};
+
+  /// Hashes whose download failed since the last manifest. The rest of their
+  /// chunks are already on their way and can't be used, so they're ignored
+  /// until the hub starts over with a new manifest.
+  final _failed = <String>{};
+
+  AssetInstaller(this.config, {required this.root, required this.staging});
+
+  static Future<AssetInstaller> open(Config config) async => AssetInstaller(
+        config,
+        root: await Config.getAssetsPath(),
+        staging: await Config.getAssetsStagingPath(),
+      );
+
+  Future<T> _serialize<T>(Future<T> Function() operation) {
+    final result = _tail.then((_) => operation());
+    _tail = result.then((_) {}, onError: (_) {});
+    return result;
+  }
+
+  String _resolve(String file) {
+    final resolved = path.normalize(path.join(root, file));
+    if (!path.isWithin(root, resolved)) {
+      throw FormatException('Asset path is outside the assets root.', file);
+    }
+    return resolved;
+  }
+
+  File _staged(String hash) => File(path.join(staging, hash));
+
+  /// Returns the installed files and the progress of partial downloads.
+  Future<AssetInventory> inventory() => _serialize(() async {
+        final files = <String, String>{};
+        for (final MapEntry(key: file, value: hash)
+            in config.assetHashes.entries) {
+          if (await File(_resolve(file)).exists()) {
+            files[file] = hash;
+          }
+        }
+
+        final partial = <String, int>{};
+        try {
+          await for (final entity in Directory(staging).list()) {
+            if (entity is File) {
+              partial[path.basename(entity.path)] = await entity.length();
+            }
+          }
+        } on PathNotFoundException {
+          // Nothing staged.
+        }
+
+        return AssetInventory(files: files, partial: partial);
+      });
+
+  /// Starts installing [manifest], first with any files that are already
+  /// here, perhaps under another path.
+  Future<AssetProgress> begin(String version, AssetManifest manifest) =>
+      _serialize(() async {
+        _version = version;
+        _manifest = manifest;
+        _pending.clear();
+        _sizes.clear();
+        _failed.clear();
+
+        final installed = config.assetHashes;
+        final sources = <String, String>{};
+        for (final MapEntry(key: file, value: hash) in installed.entries) {
+          sources[hash] = file;
+        }
+
+        for (final MapEntry(key: file, value: entry)
+            in manifest.files.entries) {
+          _sizes[entry.hash] = entry.size;
+          if (installed[file] != entry.hash ||
+              !await File(_resolve(file)).exists()) {
+            (_pending[entry.hash] ??= []).add(file);
+          }
+        }
+
+        // Stage everything available locally before installing anything,
+        // since installing may overwrite a source.
+        await Directory(staging).create(recursive: true);
+        for (final hash in _pending.keys) {
+          final staged = _staged(hash);
+          if (_sizes[hash] == 0) {
+            await staged.writeAsBytes(const []);
+          } else if (sources[hash] case final source?) {
+            try {
+              await File(_resolve(source)).copy(staged.path);
+            } on FileSystemException {
+              // Fall back to downloading it.
+            }
+          }
+        }
+
+        var progress = AssetProgress.pending;
+        for (final hash in [..._pending.keys]) {
+          final staged = _staged(hash);
+          if (await staged.exists() && await staged.length() == _sizes[hash]) {
+            if (!await _install(hash)) {
+              progress = AssetProgress.failed;
+            }
+          }
+        }
+        return await _finishIfDone() ? AssetProgress.done : progress;
+      });
+
+  /// Writes a chunk of the file with content [hash] at [offset].
+  ///
+  /// Reports [AssetProgress.failed] at most once per file per manifest.
+  Future<AssetProgress> add(String hash, int offset, List<int> data) =>
+      _serialize(() async {
+        final size = _sizes[hash];
+        if (!_pending.containsKey(hash) ||
+            size == null ||
+            _failed.contains(hash)) {
+          // A chunk from a superseded push, or following one that failed.
+          return AssetProgress.pending;
+        }
+
+        final staged = _staged(hash);
+        final length = await staged.exists() ? await staged.length() : 0;
+        if (offset > length) {
+          // We missed a chunk, possibly the first, in which case nothing has
+          // been staged.
+          if (await staged.exists()) await staged.delete();
+          _failed.add(hash);
+          return AssetProgress.failed;
+        }
+
+        final file = await staged.open(mode: FileMode.append);
+        try {
+          await file.setPosition(offset);
+          await file.writeFrom(data);
+          await file.truncate(offset + data.length);
+        } finally {
+          await file.close();
+        }
+
+        if (offset + data.length < size) {
+          return AssetProgress.pending;
+        }
+        if (!await _install(hash)) {
+          _failed.add(hash);
+          return AssetProgress.failed;
+        }
+        return await _finishIfDone()
+            ? AssetProgress.done
+            : AssetProgress.pending;
+      });
+
+  /// Verifies a staged file and moves it into place at each of its paths.
+  Future<bool> _install(String hash) async {
+    final staged = _staged(hash);
+    if (computeAssetHash(await staged.readAsBytes()) != hash) {
+      await staged.delete();
+      // If it was copied from an installed file, that file isn't what we
+      // thought, so stop claiming to have it.
+      config.assetHashes = config.assetHashes
+        ..removeWhere((_, installedHash) => installedHash == hash);
+      return false;
+    }
+
+    final files = _pending.remove(hash)!;
+    final hashes = config.assetHashes;
+    for (final (i, file) in files.indexed) {
+      final destination = _resolve(file);
+      await Directory(path.dirname(destination)).create(recursive: true);
+      if (i == files.length - 1) {
+        await staged.rename(destination);
+      } else {
+        await (await staged.copy('$destination.part')).rename(destination);
+      }
+      hashes[file] = hash;
+    }
+    // Record each install as it happens so that a later sync never copies
+    // from a file that has since been replaced.
+    config.assetHashes = hashes;
+    return true;
+  }
+
+  /// Once every file is installed, removes files that aren't in the manifest
+  /// and records the new version.
+  Future<bool> _finishIfDone() async {
+    final manifest = _manifest;
+    if (manifest == null || _pending.isNotEmpty) {
+      return false;
+    }
+
+    final keep = {for (final file in manifest.files.keys) _resolve(file)};
+    final directory = Directory(root);
+    await directory.create(recursive: true);
+    await for (final entity in directory.list(recursive: true)) {
+      if (entity is File && !keep.contains(path.normalize(entity.path))) {
+        await entity.delete();
+      }
+    }
+    try {
+      await Directory(staging).delete(recursive: true);
+    } on PathNotFoundException {
+      // ignore
+    }
+
+    config.assetHashes = {
+      for (final MapEntry(key: file, value: entry) in manifest.files.entries)
+        file: entry.hash,
+    };
+    config.assetsVersion = _version;
+    _manifest = null;
+    return true;
+  }
+
+  /// Replaces all assets with the contents of a zip [archive], as pushed by
+  /// hubs that don't sync per file.
+  ///
+  /// The archive is extracted natively from a file, which keeps memory use to
+  /// the one copy already received.
+  Future<void> installArchive(Uint8List archive) => _serialize(() async {
+        _manifest = null;
+        _pending.clear();
+        _failed.clear();
+
+        final file = File('$root.zip');
+        await file.writeAsBytes(archive, flush: true);
+        final ExtractedAssets extracted;
+        try {
+          extracted = await AssetExtractor.extract(
+            archive: file.path,
+            destination: root,
+            staging: staging,
+          );
+        } finally {
+          await file.delete();
+        }
+
+        config.assetHashes = extracted.hashes;
+        config.assetsVersion = extracted.version;
+      });
+}
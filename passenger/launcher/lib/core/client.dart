@@ -1,7 +1,6 @@
 import 'dart:async';
 import 'dart:io';
 
-import 'package:archive/archive_io.dart';
 import 'package:async/async.dart';
 import 'package:connectivity_plus/connectivity_plus.dart';
 import 'package:flutter/foundation.dart';
@@ -11,9 +10,9 @@ import 'package:overlay_window/overlay_window.dart';
 import 'package:retry/retry.dart';
 import 'package:ride_device_policy/ride_device_policy.dart';
 import 'package:ride_shared/protocol.dart';
-import 'package:screen_state/screen_state.dart';
 
 import '../ui/vehicle_controls.dart';
+import 'asset_installer.dart';
 import 'config.dart';
 
 enum ClientStatus {
@@ -223,6 +222,7 @@ class Client extends ChangeNotifier {
             width: 192,
             height: 48,
           ),
+          renderMode: RenderMode.opaqueTexture,
         ),
         OverlayWindow.create(
           VolumeControls.main,
@@ -233,6 +233,7 @@ class Client extends ChangeNotifier {
             width: 192,
             height: 48,
           ),
+          renderMode: RenderMode.opaqueTexture,
         ),
       ];
 
@@ -295,9 +296,16 @@ class Client extends ChangeNotifier {
           final visibility = args!['visible'] as bool
               ? OverlayWindow.visible
               : OverlayWindow.gone;
-          for (final overlayWindow in overlayWindows) {
-            (() async => (await overlayWindow).setVisibility(visibility))();
-          }
+          // Overlays are hidden whenever the launcher is in front, which can
+          // be for long stretches, so release their surfaces while hidden.
+          (() async => OverlayWindow.applyBatch([
+                for (final overlayWindow in await Future.wait(overlayWindows))
+                  WindowUpdate(
+                    overlayWindow,
+                    visibility: visibility,
+                    hideMode: HideMode.releaseWithSnapshot,
+                  ),
+              ]))();
         }),
       ];
 
@@ -305,8 +313,17 @@ class Client extends ChangeNotifier {
 
       await Future.wait([
         for (final subscription in subscriptions) subscription.cancel(),
-        for (final overlayWindow in overlayWindows)
-          (() async => (await overlayWindow).destroy())(),
+        (() async {
+          try {
+            // Let any pending creates settle so that destroyAll covers them.
+            // A failed create has nothing to destroy, and must not keep the
+            // others from being destroyed.
+            await Future.wait(
+                overlayWindows.map((f) => f.then((_) {}, onError: (_) {})));
+          } finally {
+            await OverlayWindow.destroyAll();
+          }
+        })(),
       ]);
       await connectionTask?.cancel();
     } finally {
@@ -414,6 +431,10 @@ class Client extends ChangeNotifier {
   static Future<void> releaseDevicePolicy() =>
       RideDevicePolicy.setScreenOffTimeout(const Duration(minutes: 2));
 
+  /// Shared across connections so that installs from a dropped connection
+  /// finish before a new one starts.
+  static Future<AssetInstaller>? _assetInstaller;
+
   final Config config;
   final Sink<Message> _socket;
   ClientListener? listener;
@@ -438,25 +459,20 @@ class Client extends ChangeNotifier {
 
     socket.transform(decoder).listen(_dispatch, onDone: _disconnected.complete);
 
+    _assetInstaller ??= AssetInstaller.open(config);
+
     _send(['id', config.id]);
-    _send(['assets', config.assetsVersion]);
+    _reportAssets();
     _send(['vehicle']);
 
     _windowEventSubscription = RideDevicePolicy.windowEvents
         .listen((event) => _send(['window', event]));
-    _screenSubscription = Screen().screenStateStream!.listen(
-      (event) {
-        switch (event) {
-          case ScreenStateEvent.SCREEN_ON:
-            _send(['screen', true]);
-            break;
-          case ScreenStateEvent.SCREEN_OFF:
-            _send(['screen', false]);
-            break;
-          default:
-        }
-      },
-    );
+    // The first event is the current state, so the hub learns it on connect
+    // rather than assuming the screen is on.
+    _screenSubscription = RideDevicePolicy.screenState
+        .map((state) => state.isOn)
+        .distinct()
+        .listen((screenOn) => _send(['screen', screenOn]));
   }
 
   @override
@@ -473,21 +489,20 @@ class Client extends ChangeNotifier {
         config.id = value;
         _send(['id', config.id]);
       case ['assets', final assets as Uint8List]:
-        {
-          final archive = ZipDecoder().decodeBytes(assets, verify: true);
-          final path = await Config.getAssetsPath();
-          try {
-            await Directory(path).delete(recursive: true);
-          } on PathNotFoundException {
-            // ignore
-          }
-          await extractArchiveToDiskAsync(archive, path);
-
-          listener?.assetsChanged();
-
-          config.assetsVersion = computeAssetsVersion(assets);
-          _send(['assets', config.assetsVersion]);
-        }
+        await (await _assetInstaller!).installArchive(assets);
+        listener?.assetsChanged();
+        _reportAssets();
+      case ['assetManifest', final String version, final Map manifest]:
+        _onAssetProgress(await (await _assetInstaller!)
+            .begin(version, AssetManifest.fromMessage(manifest)));
+      case [
+          'assetChunk',
+          final String hash,
+          final int offset,
+          final Uint8List data,
+        ]:
+        _onAssetProgress(
+            await (await _assetInstaller!).add(hash, offset, data));
       case ['wake']:
         await RideDevicePolicy.wakeUp();
       case ['home']:
@@ -512,6 +527,31 @@ class Client extends ChangeNotifier {
 
   void _send(List<dynamic> args) => _socket.add(args);
 
+  /// Tells the hub which assets we have, both per file and, for hubs that
+  /// only push whole archives, by version.
+  Future<void> _reportAssets() async {
+    final inventory = await (await _assetInstaller!).inventory();
+    if (!isConnected) return;
+    _send(['assetInventory', config.assetsVersion, inventory.toMessage()]);
+    _send(['assets', config.assetsVersion]);
+  }
+
+  void _onAssetProgress(AssetProgress progress) {
+    switch (progress) {
+      case AssetProgress.pending:
+        break;
+      case AssetProgress.done:
+        listener?.assetsChanged();
+        _reportAssets();
+      case AssetProgress.failed:
+        // The hub will push again from what we have, starting with a new
+        // manifest. The installer ignores the rest of the failed file until
+        // then, so this is reported once rather than for every chunk still
+        // in flight.
+        _reportAssets();
+    }
+  }
+
   void setClimate(double value) {
     vehicle.climate.setting.fromDownstream(value);
     notifyListeners();
@@ -1,3 +1,5 @@
+import 'dart:convert';
+
 import 'package:path/path.dart' as path;
 import 'package:path_provider/path_provider.dart';
 import 'package:ride_shared/defaults.dart' as defaults;
@@ -6,8 +8,10 @@ import 'package:uuid/uuid.dart';
 
 class Config {
   static const assetsSubdirectory = 'assets',
+      assetsStagingSubdirectory = 'assets.partial',
       idKey = 'id',
       assetsVersionKey = 'assets version',
+      assetHashesKey = 'asset hashes',
       portKey = 'boot';
 
   static Future<String> getAssetsPath() async => path.join(
@@ -15,6 +19,13 @@ class Config {
         assetsSubdirectory,
       );
 
+  /// Where asset files are downloaded before being moved into place. This is
+  /// next to the assets directory so that moves are atomic.
+  static Future<String> getAssetsStagingPath() async => path.join(
+        (await getApplicationCacheDirectory()).path,
+        assetsStagingSubdirectory,
+      );
+
   final SharedPreferences _sharedPreferences;
 
   String get id {
@@ -34,6 +45,15 @@ class Config {
     _sharedPreferences.setString(assetsVersionKey, value!);
   }
 
+  /// Hashes of installed asset files, by path relative to the assets directory.
+  Map<String, String> get assetHashes {
+    final json = _sharedPreferences.getString(assetHashesKey);
+    return json == null ? {} : Map.from(jsonDecode(json) as Map);
+  }
+
+  set assetHashes(Map<String, String> value) =>
+      _sharedPreferences.setString(assetHashesKey, jsonEncode(value));
+
   int get serverPort =>
       _sharedPreferences.getInt(portKey) ?? defaults.serverPort;
   set serverPort(int value) => _sharedPreferences.setInt(portKey, value);
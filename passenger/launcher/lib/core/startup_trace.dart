@@ -0,0 +1,19 @@
+import 'package:flutter/services.dart';
+
+/// Startup milestones recorded by the launcher app, in time since process
+/// start. Most are recorded natively; this allows Dart to add its own and read
+/// back the record.
+class StartupTrace {
+  static const channel = MethodChannel('ride_launcher.startup');
+
+  static const clientConnected = 'clientConnected';
+
+  /// Records [name] if it hasn't been recorded yet.
+  static Future<void> mark(String name) => channel.invokeMethod('mark', name);
+
+  static Future<Map<String, Duration>> get() async => {
+        for (final MapEntry(:key, :value)
+            in (await channel.invokeMapMethod<String, int>('get'))!.entries)
+          key: Duration(milliseconds: value),
+      };
+}
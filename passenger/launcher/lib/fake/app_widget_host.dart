@@ -24,9 +24,42 @@ class FakeAppWidgetHost extends AppWidgetHostPlatform {
   @override
   Future<bool> configureAppWidget(int appWidgetId) async => true;
 
+  @override
+  Future<Map<int, AppWidgetRestoreStatus>> restoreAll(
+    Map<int, ComponentName> appWidgets,
+  ) async =>
+      {
+        for (final appWidgetId in appWidgets.keys)
+          appWidgetId: AppWidgetRestoreStatus.valid,
+      };
+
   @override
   Future<void> deleteAppWidgetId(int appWidgetId) async {}
 
   @override
   Future<bool> checkAppWidget(int appWidgetId) async => true;
+
+  @override
+  Future<void> setViewCacheSize(int size) async {}
+
+  @override
+  Future<void> setAppWidgetVisible(int appWidgetId, bool visible) async {}
+
+  @override
+  Future<void> setMinUpdateInterval(int appWidgetId, Duration interval) async {}
+
+  @override
+  Future<Map<int, AppWidgetUpdateStats>> getUpdateStats() async => {};
+
+  @override
+  Future<List<AppWidgetProviderInfo>> getInstalledProviders() async => [];
+
+  @override
+  Future<ProviderImage?> getProviderImage(
+    ComponentName provider,
+    ProviderImageKind kind,
+    int width,
+    int height,
+  ) async =>
+      null;
 }
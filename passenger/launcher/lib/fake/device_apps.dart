@@ -3,7 +3,9 @@ import 'dart:convert';
 import 'dart:typed_data';
 
 import 'package:device_apps/device_apps.dart';
+import 'package:flutter/widgets.dart';
 import 'package:flutter_test/flutter_test.dart';
+import 'package:ride_app_catalog/ride_app_catalog.dart';
 
 import '../ui/nav_tray.dart';
 
@@ -11,26 +13,17 @@ final Uint8List kEmptyPng = base64.decode('iVBORw0KGgoAAAANSUhEU'
     'gAAAAEAAAABCAYAAAAfFcSJAAAAAXNSR0IArs4c6QAAAARnQU1BAACxjwv8YQUAAAAJcEhZcwA'
     'ADsMAAA7DAcdvqGQAAAANSURBVBhXY2BgYGAAAAAFAAGKM+MAAAAAAElFTkSuQmCC');
 
-class FakeApp with Fake implements Application {
-  @override
+class FakeApp {
   final String packageName;
-  @override
   final String appName;
 
   const FakeApp({required this.packageName, required this.appName});
-}
 
-class FakeAppWithIcon with Fake implements ApplicationWithIcon {
-  final FakeApp _base;
-
-  @override
-  get packageName => _base.packageName;
-  @override
-  get appName => _base.appName;
-  @override
-  get icon => kEmptyPng;
-
-  const FakeAppWithIcon(this._base);
+  AppInfo get info => AppInfo(
+        packageName: packageName,
+        label: appName,
+        lastUpdateTime: DateTime.fromMillisecondsSinceEpoch(0),
+      );
 }
 
 class FakeApplicationEvent with Fake implements ApplicationEvent {
@@ -67,12 +60,30 @@ class FakeDeviceApps implements DeviceAppsImpl {
 
   Future<dynamic> close() => events.close();
 
+  /// Sends the current [apps], then translates [events] into catalog changes.
   @override
-  Future<List<Application>> getInstalledApplications({
-    required bool includeAppIcons,
-  }) async =>
-      includeAppIcons ? [for (final app in apps) FakeAppWithIcon(app)] : apps;
+  Stream<AppCatalogChange> get changes async* {
+    yield AppCatalogChange(
+      reset: true,
+      updated: [for (final app in apps) app.info],
+    );
+
+    await for (final event in events.stream) {
+      switch (event.event) {
+        case ApplicationEventType.installed:
+        case ApplicationEventType.updated:
+        case ApplicationEventType.enabled:
+          yield AppCatalogChange(updated: [
+            for (final app in apps)
+              if (app.packageName == event.packageName) app.info,
+          ]);
+        case ApplicationEventType.uninstalled:
+        case ApplicationEventType.disabled:
+          yield AppCatalogChange(removed: [event.packageName]);
+      }
+    }
+  }
 
   @override
-  Stream<ApplicationEvent> listenToAppsChanges() => events.stream;
+  ImageProvider icon(AppInfo app, int size) => MemoryImage(kEmptyPng);
 }
@@ -6,6 +6,7 @@ import 'package:flutter/material.dart';
 import 'package:flutter/services.dart';
 
 import 'core/client.dart';
+import 'core/startup_trace.dart';
 import 'fake/app_widget_host.dart';
 import 'fake/client_manager.dart';
 import 'fake/device_apps.dart';
@@ -44,9 +45,19 @@ Future<void> main() async {
 
     AppWidgetHostPlatform.instance = FakeAppWidgetHost();
   } else {
-    clientManager = await ClientManager.initialize()
+    final manager = clientManager = await ClientManager.initialize()
       ..start();
 
+    void markConnected() {
+      if (manager.status == ClientStatus.connected) {
+        StartupTrace.mark(StartupTrace.clientConnected);
+        manager.removeListener(markConnected);
+      }
+    }
+
+    manager.addListener(markConnected);
+    markConnected();
+
     deviceApps = null;
 
     const intentsChannel = EventChannel('ride_launcher.intents');
@@ -147,6 +147,20 @@ class _RideLauncherState extends State<RideLauncher> implements ClientListener {
     return completer.operation;
   }
 
+  static Future<void> _resumed() async {
+    if (WidgetsBinding.instance.lifecycleState == AppLifecycleState.resumed) {
+      return;
+    }
+    final resumed = Completer<void>();
+    final listener = AppLifecycleListener(onStateChange: (state) {
+      if (state == AppLifecycleState.resumed && !resumed.isCompleted) {
+        resumed.complete();
+      }
+    });
+    await resumed.future;
+    listener.dispose();
+  }
+
   @override
   void initState() {
     super.initState();
@@ -157,6 +171,12 @@ class _RideLauncherState extends State<RideLauncher> implements ClientListener {
       ..onBind?.call();
 
     () async {
+      // The engine is started with the process, possibly well before there's
+      // an activity to show permission requests from or to show overlays
+      // over.
+      await _resumed();
+      if (!mounted) return;
+
       await RideDevicePolicy.requestAdminIfNeeded();
       await RideDevicePolicy.requestAccessibilityIfNeeded();
 
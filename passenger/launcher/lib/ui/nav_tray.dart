@@ -5,6 +5,7 @@ import 'package:device_apps/device_apps.dart';
 import 'package:flutter/material.dart';
 import 'package:quiver/collection.dart';
 import 'package:quiver/iterables.dart';
+import 'package:ride_app_catalog/ride_app_catalog.dart';
 
 import '../core/platform.dart' as platform;
 import 'parallelogram_border.dart';
@@ -33,16 +34,8 @@ enum RideAppCategory {
 class DeviceAppsImpl {
   const DeviceAppsImpl();
 
-  Stream<ApplicationEvent> listenToAppsChanges() =>
-      DeviceApps.listenToAppsChanges();
-  Future<List<Application>> getInstalledApplications({
-    required bool includeAppIcons,
-  }) =>
-      DeviceApps.getInstalledApplications(
-        includeSystemApps: true,
-        includeAppIcons: includeAppIcons,
-        onlyAppsWithLaunchIntent: true,
-      );
+  Stream<AppCatalogChange> get changes => AppCatalog.changes;
+  ImageProvider icon(AppInfo app, int size) => AppIconImage(app, size: size);
 }
 
 class NavTrayController {
@@ -54,6 +47,10 @@ class NavTrayController {
 class NavTray extends StatefulWidget {
   static const double tileHeight = 64.0, padding = 64.0, spacing = 24.0;
 
+  /// The logical size icons are rasterized at. Icons in category buttons are
+  /// drawn smaller, but sharing one size lets them share one cached image.
+  static const double iconSize = tileHeight;
+
   final NavTrayController? controller;
   final DeviceAppsImpl deviceApps;
   final bool locked;
@@ -117,38 +114,44 @@ class NavPageTransitions extends PageTransitionsTheme {
 }
 
 class _App extends ChangeNotifier {
-  final String name;
-  final String packageName;
-  final ImageProvider icon;
+  final AppInfo info;
+  final ImageProvider Function(int size) _icon;
 
   bool isLaunching = false;
 
-  _App({required this.name, required this.packageName, required this.icon});
-
-  Widget buildIcon(BuildContext context) => ListenableBuilder(
-        listenable: this,
-        builder: (context, child) => AnimatedSwitcher(
-          duration: const Duration(milliseconds: 500),
-          switchInCurve: const Interval(0.5, 1.0),
-          // A switch-out interval of 0,.5 would be a pure delay, but keeping it
-          // linear is an interesting visual.
-          child: isLaunching ? const CircularProgressIndicator() : child,
-        ),
-        child: Image(
-          // Unclear why at least one of these children needs a key to force the
-          // animation, since they're different types.
-          key: ValueKey(icon),
-          image: icon,
-          frameBuilder: (context, child, frame, wasSynchronouslyLoaded) =>
-              wasSynchronouslyLoaded
-                  ? child
-                  : AnimatedOpacity(
-                      opacity: frame == null ? 0 : 1,
-                      duration: const Duration(milliseconds: 100),
-                      child: child,
-                    ),
-        ),
-      );
+  _App(this.info, this._icon);
+
+  String get name => info.label;
+  String get packageName => info.packageName;
+
+  Widget buildIcon(BuildContext context) {
+    final icon = _icon(
+        (NavTray.iconSize * MediaQuery.devicePixelRatioOf(context)).round());
+    return ListenableBuilder(
+      listenable: this,
+      builder: (context, child) => AnimatedSwitcher(
+        duration: const Duration(milliseconds: 500),
+        switchInCurve: const Interval(0.5, 1.0),
+        // A switch-out interval of 0,.5 would be a pure delay, but keeping it
+        // linear is an interesting visual.
+        child: isLaunching ? const CircularProgressIndicator() : child,
+      ),
+      child: Image(
+        // Unclear why at least one of these children needs a key to force the
+        // animation, since they're different types.
+        key: ValueKey(icon),
+        image: icon,
+        frameBuilder: (context, child, frame, wasSynchronouslyLoaded) =>
+            wasSynchronouslyLoaded
+                ? child
+                : AnimatedOpacity(
+                    opacity: frame == null ? 0 : 1,
+                    duration: const Duration(milliseconds: 100),
+                    child: child,
+                  ),
+      ),
+    );
+  }
 
   Future<bool> open() async {
     isLaunching = true;
@@ -191,7 +194,6 @@ class NavTrayState extends State<NavTray> {
 
   final _heroController = HeroController();
   late Stream<Multimap<RideAppCategory, _App>> _apps;
-  final _iconCache = <String, ImageProvider>{};
   RideAppCategory? selectedCategory;
 
   void home() => setState(() => selectedCategory = null);
@@ -222,48 +224,33 @@ class NavTrayState extends State<NavTray> {
     super.dispose();
   }
 
+  /// Folds catalog changes into categorized apps. Apps that didn't change keep
+  /// their [_App], and with it their icon and launch state.
   Stream<Multimap<RideAppCategory, _App>> _listenToApps() async* {
-    yield await _getCategorizedApps(needsIcons: true);
-
-    await for (final change in widget.deviceApps.listenToAppsChanges()) {
-      if (const {
-        ApplicationEventType.updated,
-        ApplicationEventType.uninstalled,
-        ApplicationEventType.disabled,
-      }.contains(change.event)) {
-        _iconCache.remove(change.packageName);
+    final deviceApps = widget.deviceApps;
+    final catalog = <String, AppInfo>{};
+    final apps = <String, _App>{};
+
+    await for (final change in deviceApps.changes) {
+      change.applyTo(catalog);
+      apps.removeWhere((packageName, app) => catalog[packageName] != app.info);
+      for (final info in catalog.values) {
+        apps.putIfAbsent(
+          info.packageName,
+          () => _App(info, (size) => deviceApps.icon(info, size)),
+        );
       }
 
-      yield await _getCategorizedApps(
-        needsIcons: const {
-          ApplicationEventType.installed,
-          ApplicationEventType.updated,
-          ApplicationEventType.enabled,
-        }.contains(change.event),
+      yield Multimap.fromIterable(
+        apps.values.toList()
+          ..sort(
+            (a, b) => a.name.toLowerCase().compareTo(b.name.toLowerCase()),
+          ),
+        key: (app) => RideAppCategory.categorizeApp((app as _App).packageName),
       );
     }
   }
 
-  Future<Multimap<RideAppCategory, _App>> _getCategorizedApps({
-    required bool needsIcons,
-  }) =>
-      widget.deviceApps
-          .getInstalledApplications(includeAppIcons: needsIcons)
-          .then(
-            (apps) => Multimap.fromIterable(
-              apps,
-              key: (app) => RideAppCategory.categorizeApp(
-                (app as Application).packageName,
-              ),
-              value: (app) => _App(
-                name: (app as Application).appName,
-                packageName: app.packageName,
-                icon: _iconCache[app.packageName] ??=
-                    MemoryImage((app as ApplicationWithIcon).icon),
-              ),
-            ),
-          );
-
   EdgeInsets get _scrollPadding => EdgeInsets.fromLTRB(
         NavTray.padding,
         NavTray.padding,
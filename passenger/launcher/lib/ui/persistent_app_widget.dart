@@ -1,3 +1,5 @@
+import 'dart:async';
+
 import 'package:app_widget_host/app_widget_host.dart';
 import 'package:flutter/foundation.dart';
 import 'package:flutter/material.dart';
@@ -24,6 +26,48 @@ class PersistentAppWidget extends StatefulWidget {
 
 enum _BindingState { initial, allocated, bound, configured }
 
+/// Batches restores of configured app widgets that start up together into one
+/// [AppWidgetHost.restoreAll] call.
+class _RestoreBatch {
+  static _RestoreBatch? _pending;
+
+  final appWidgets = <int, ComponentName>{};
+  final _result = Completer<Map<int, AppWidgetRestoreStatus>>();
+
+  _RestoreBatch._() {
+    // Run after every widget built in this frame has read its binding state.
+    Timer.run(() {
+      _pending = null;
+      _result.complete(AppWidgetHost.restoreAll(appWidgets));
+    });
+  }
+
+  static Future<AppWidgetRestoreStatus> restore(
+    int appWidgetId,
+    ComponentName provider,
+  ) async {
+    final batch = _pending ??= _RestoreBatch._();
+    batch.appWidgets[appWidgetId] = provider;
+    try {
+      final status = (await batch._result.future)[appWidgetId];
+      if (status != null) return status;
+    } on Exception {
+      // Fall through.
+    }
+
+    // The batch failed or left this app widget out. Check it on its own, and if
+    // even that fails, start over with a new binding rather than leaving the
+    // spinner up.
+    try {
+      return await AppWidgetHost.checkAppWidget(appWidgetId)
+          ? AppWidgetRestoreStatus.valid
+          : AppWidgetRestoreStatus.unbound;
+    } on Exception {
+      return AppWidgetRestoreStatus.unbound;
+    }
+  }
+}
+
 class _PersistentAppWidgetState extends State<PersistentAppWidget> {
   static const keyPrefix = 'PersistentAppWidget';
 
@@ -55,6 +99,22 @@ class _PersistentAppWidgetState extends State<PersistentAppWidget> {
           ? _BindingState.initial
           : _BindingState.values[bindingStateIndex];
 
+      if (bindingState == _BindingState.configured) {
+        switch (await _RestoreBatch.restore(appWidgetId, widget.provider)) {
+          case AppWidgetRestoreStatus.valid:
+            if (mounted) {
+              setState(() => bindInProgress = false);
+            }
+            return;
+          case AppWidgetRestoreStatus.rebound:
+            bindingState = _BindingState.bound;
+            break;
+          case AppWidgetRestoreStatus.unbound:
+            bindingState = _BindingState.initial;
+            break;
+        }
+      }
+
       if (mounted) {
         await bind();
       }
@@ -7,12 +7,18 @@ import 'numeric_control.dart';
 
 final overlayTheme = ThemeData.dark(useMaterial3: true);
 
+// The overlays sit over the navigation bar and are rendered opaque (see
+// RenderMode.opaqueTexture), so they paint their own navigation bar
+// background.
 Widget _wrap(Widget child) => MaterialApp(
       debugShowCheckedModeBanner: false,
       theme: overlayTheme,
-      home: DefaultTextStyle(
-        style: overlayTheme.textTheme.labelLarge!.copyWith(fontSize: 22.0),
-        child: child,
+      home: ColoredBox(
+        color: Colors.black,
+        child: DefaultTextStyle(
+          style: overlayTheme.textTheme.labelLarge!.copyWith(fontSize: 22.0),
+          child: child,
+        ),
       ),
     );
 
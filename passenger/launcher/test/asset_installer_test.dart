@@ -0,0 +1,194 @@
+import 'dart:convert';
+import 'dart:io';
+import 'dart:typed_data';
+
+import 'package:path/path.dart' as path;
+import 'package:ride_launcher/core/asset_installer.dart';
+import 'package:ride_launcher/core/config.dart';
+import 'package:ride_shared/protocol.dart';
+import 'package:shared_preferences/shared_preferences.dart';
+import 'package:test/test.dart';
+
+void main() {
+  late Directory temp;
+  late Config config;
+  late AssetInstaller installer;
+
+  final greeting = Uint8List.fromList(utf8.encode('hello' * 100000)),
+      logo = Uint8List.fromList(utf8.encode('logo'));
+  final greetingHash = computeAssetHash(greeting),
+      logoHash = computeAssetHash(logo);
+
+  Future<String> read(String file) =>
+      File(path.join(installer.root, file)).readAsString();
+
+  Future<AssetProgress> send(String hash, Uint8List data) async {
+    var progress = AssetProgress.pending;
+    for (final (offset, chunk) in assetChunks(data)) {
+      progress = await installer.add(hash, offset, chunk);
+    }
+    return progress;
+  }
+
+  setUp(() async {
+    temp = await Directory.systemTemp.createTemp('assets');
+    addTearDown(() => temp.delete(recursive: true));
+    SharedPreferences.setMockInitialValues({});
+    config = Config(await SharedPreferences.getInstance());
+    installer = AssetInstaller(
+      config,
+      root: path.join(temp.path, 'assets'),
+      staging: path.join(temp.path, 'assets.partial'),
+    );
+  });
+
+  test('installs pushed files', () async {
+    expect(
+      await installer.begin(
+        'v1',
+        AssetManifest({
+          'greeting.txt': AssetEntry(greetingHash, greeting.length),
+          'images/logo.txt': AssetEntry(logoHash, logo.length),
+        }),
+      ),
+      AssetProgress.pending,
+    );
+    expect(await send(greetingHash, greeting), AssetProgress.pending);
+    expect(await send(logoHash, logo), AssetProgress.done);
+
+    expect(await read('images/logo.txt'), 'logo');
+    expect(config.assetsVersion, 'v1');
+    expect((await installer.inventory()).files, {
+      'greeting.txt': greetingHash,
+      'images/logo.txt': logoHash,
+    });
+  });
+
+  test('reuses local files and removes stale ones', () async {
+    await installer.begin(
+      'v1',
+      AssetManifest({
+        'greeting.txt': AssetEntry(greetingHash, greeting.length),
+        'logo.txt': AssetEntry(logoHash, logo.length),
+      }),
+    );
+    await send(greetingHash, greeting);
+    await send(logoHash, logo);
+
+    // The logo moved and the greeting was dropped.
+    expect(
+      await installer.begin(
+        'v2',
+        AssetManifest({'images/logo.txt': AssetEntry(logoHash, logo.length)}),
+      ),
+      AssetProgress.done,
+    );
+    expect(await read('images/logo.txt'), 'logo');
+    expect(await File(path.join(installer.root, 'greeting.txt')).exists(),
+        isFalse);
+    expect(config.assetsVersion, 'v2');
+  });
+
+  test('resumes partial downloads', () async {
+    final manifest = AssetManifest({
+      'greeting.txt': AssetEntry(greetingHash, greeting.length),
+    });
+    await installer.begin('v1', manifest);
+    final (offset, chunk) = assetChunks(greeting).first;
+    await installer.add(greetingHash, offset, chunk);
+
+    final inventory = await installer.inventory();
+    expect(inventory.partial, {greetingHash: assetChunkSize});
+    expect(inventory.missing(manifest), {greetingHash});
+
+    await installer.begin('v1', manifest);
+    var progress = AssetProgress.pending;
+    for (final (offset, chunk) in assetChunks(greeting, assetChunkSize)) {
+      progress = await installer.add(greetingHash, offset, chunk);
+    }
+    expect(progress, AssetProgress.done);
+    expect(await read('greeting.txt'), utf8.decode(greeting));
+  });
+
+  test('rejects chunks past the staged data', () async {
+    final manifest = AssetManifest({
+      'greeting.txt': AssetEntry(greetingHash, greeting.length),
+    });
+    await installer.begin('v1', manifest);
+    final [(offset0, chunk0), (offset1, chunk1)] =
+        assetChunks(greeting).toList();
+
+    // Nothing staged yet.
+    expect(
+      await installer.add(greetingHash, offset1, chunk1),
+      AssetProgress.failed,
+    );
+
+    await installer.begin('v1', manifest);
+    await installer.add(greetingHash, offset0, chunk0);
+    expect(
+      await installer.add(greetingHash, offset1 + 1, chunk1),
+      AssetProgress.failed,
+    );
+    expect((await installer.inventory()).partial, isEmpty);
+  });
+
+  test('ignores the rest of a failed file until the next manifest', () async {
+    final manifest = AssetManifest({
+      'greeting.txt': AssetEntry(greetingHash, greeting.length),
+      'logo.txt': AssetEntry(logoHash, logo.length),
+    });
+    await installer.begin('v1', manifest);
+    final [(offset0, chunk0), (offset1, chunk1)] =
+        assetChunks(greeting).toList();
+
+    // The first chunk was lost, so every later one fails, but only the first
+    // failure is reported.
+    expect(
+      await installer.add(greetingHash, offset1, chunk1),
+      AssetProgress.failed,
+    );
+    expect(
+      await installer.add(greetingHash, offset0, chunk0),
+      AssetProgress.pending,
+    );
+    expect(
+      await installer.add(greetingHash, offset1, chunk1),
+      AssetProgress.pending,
+    );
+    expect((await installer.inventory()).partial, isEmpty);
+
+    // Other files are unaffected.
+    expect(await send(logoHash, logo), AssetProgress.pending);
+
+    await installer.begin('v1', manifest);
+    expect(await send(greetingHash, greeting), AssetProgress.done);
+    expect(await read('greeting.txt'), utf8.decode(greeting));
+  });
+
+  test('rejects corrupt files', () async {
+    await installer.begin(
+      'v1',
+      AssetManifest({'logo.txt': AssetEntry(logoHash, logo.length)}),
+    );
+    expect(
+      await installer.add(logoHash, 0, utf8.encode('lgoo')),
+      AssetProgress.failed,
+    );
+    expect((await installer.inventory()).partial, isEmpty);
+    expect(
+      await installer.add(logoHash, 0, logo),
+      AssetProgress.pending,
+    );
+  });
+
+  test('rejects paths outside the assets root', () async {
+    expect(
+      installer.begin(
+        'v1',
+        AssetManifest({'../escape.txt': AssetEntry(logoHash, logo.length)}),
+      ),
+      throwsFormatException,
+    );
+  });
+}
@@ -0,0 +1,150 @@
+/// Measures chunked decoding throughput of the socket protocol, for large
+/// messages and for streams fragmented into small chunks.
+///
+/// Run with `flutter test benchmark/codec_benchmark.dart`.
+library;
+
+import 'dart:convert';
+import 'dart:typed_data';
+
+import 'package:flutter/services.dart';
+import 'package:ride_shared/protocol.dart';
+import 'package:test/test.dart';
+
+/// The decoder before segment lists, which re-buffered all outstanding bytes
+/// twice per envelope. Kept as a baseline.
+class _BaselineDecoder implements ChunkedConversionSink<Uint8List> {
+  final Sink<Message> _out;
+  int _nextSize = 0;
+  final _buffer = BytesBuilder(copy: false);
+
+  _BaselineDecoder(this._out);
+
+  Uint8List _takeBytes(int size) {
+    final bytes = _buffer.takeBytes();
+    _buffer.add(bytes.sublist(size));
+    return bytes.sublist(0, size);
+  }
+
+  bool _emitEnvelope() {
+    if (_nextSize == 0) {
+      if (_buffer.length >= 4) {
+        _nextSize = ByteData.sublistView(_takeBytes(4)).getInt32(0);
+      } else {
+        return false;
+      }
+    }
+    if (_buffer.length >= _nextSize) {
+      _out.add(
+        const StandardMessageCodec()
+            .decodeMessage(ByteData.sublistView(_takeBytes(_nextSize))),
+      );
+      _nextSize = 0;
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  @override
+  void add(Uint8List chunk) {
+    _buffer.add(chunk);
+    while (_emitEnvelope()) {}
+  }
+
+  @override
+  void close() {}
+}
+
+Uint8List _encode(Iterable<Message> messages) {
+  final builder = BytesBuilder(copy: false);
+  final sink = encoder
+      .startChunkedConversion(ByteConversionSink.withCallback(builder.add));
+  messages.forEach(sink.add);
+  sink.close();
+  return builder.takeBytes();
+}
+
+List<Uint8List> _split(Uint8List bytes, int chunkSize) => [
+      for (var i = 0; i < bytes.length; i += chunkSize)
+        Uint8List.sublistView(
+          bytes,
+          i,
+          i + chunkSize < bytes.length ? i + chunkSize : bytes.length,
+        ),
+    ];
+
+/// Returns decoded megabytes per second, best of [runs] after an untimed
+/// warm-up run.
+double _measure(
+  List<Uint8List> chunks,
+  int messageCount,
+  Sink<Uint8List> Function(Sink<Message>) startDecoder, {
+  int runs = 5,
+}) {
+  final totalBytes = chunks.fold<int>(0, (sum, chunk) => sum + chunk.length);
+  Duration? best;
+  for (var run = -1; run < runs; ++run) {
+    var decoded = 0;
+    final sink = startDecoder(
+      ChunkedConversionSink.withCallback((m) => decoded += m.length),
+    );
+    final stopwatch = Stopwatch()..start();
+    chunks.forEach(sink.add);
+    stopwatch.stop();
+    sink.close();
+    if (decoded != messageCount) {
+      throw StateError('Decoded $decoded of $messageCount messages.');
+    }
+    if (run >= 0 && (best == null || stopwatch.elapsed < best)) {
+      best = stopwatch.elapsed;
+    }
+  }
+  return totalBytes / (1 << 20) / (best!.inMicroseconds / 1e6);
+}
+
+void main() {
+  final scenarios = {
+    // A large asset push arriving in typical socket reads.
+    'assets 8 MiB / 64 KiB chunks': (
+      messages: [
+        ['assets', Uint8List(8 << 20)],
+      ],
+      chunkSize: 64 << 10,
+    ),
+    // A push fragmented into MTU-sized reads. Smaller, since the baseline is
+    // quadratic in the number of chunks per envelope.
+    'assets 1 MiB / 1400 B chunks': (
+      messages: [
+        ['assets', Uint8List(1 << 20)],
+      ],
+      chunkSize: 1400,
+    ),
+    // Many small state updates batched into few reads.
+    '10k small messages / 64 KiB chunks': (
+      messages: [
+        for (var i = 0; i < 10000; ++i)
+          [
+            'vehicleState',
+            {'speed': i, 'gear': 'D'},
+          ],
+      ],
+      chunkSize: 64 << 10,
+    ),
+  };
+
+  for (final MapEntry(key: name, value: scenario) in scenarios.entries) {
+    test(name, () {
+      final chunks = _split(_encode(scenario.messages), scenario.chunkSize);
+      final count = scenario.messages.length;
+
+      final segmented = _measure(chunks, count, decoder.startChunkedConversion);
+      final baseline = _measure(chunks, count, _BaselineDecoder.new);
+
+      // ignore: avoid_print
+      print('$name: ${segmented.toStringAsFixed(1)} MiB/s '
+          '(baseline ${baseline.toStringAsFixed(1)} MiB/s, '
+          '${(segmented / baseline).toStringAsFixed(1)}x)');
+    }, timeout: const Timeout(Duration(minutes: 5)));
+  }
+}
@@ -1,3 +1,4 @@
+export 'src/assets.dart';
 export 'src/codec.dart';
 export 'src/hash.dart';
 export 'src/model_link.dart';
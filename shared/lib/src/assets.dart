@@ -0,0 +1,96 @@
+/// Per-file asset sync.
+///
+/// A client reports the assets it has with
+/// `['assetInventory', version, inventory]`, where the inventory is an
+/// [AssetInventory], immediately followed by the legacy `['assets', version]`.
+/// If the version isn't current, the hub replies with
+/// `['assetManifest', version, manifest]`, carrying an [AssetManifest], and
+/// then streams each file the client lacks as
+/// `['assetChunk', hash, offset, bytes]` messages of at most [assetChunkSize]
+/// bytes, resuming any partial download.
+/// Files are identified by content hash, so a file that only moved or is
+/// duplicated is never sent. Once the client has installed every file, it
+/// reports again with the new version.
+///
+/// Hubs that don't know `assetInventory` ignore it and answer the legacy
+/// report with the whole archive as `['assets', bytes]`, as they do for clients
+/// that don't send an inventory.
+library;
+
+import 'dart:math';
+import 'dart:typed_data';
+
+/// The largest payload of an `assetChunk` message, so that a large asset
+/// doesn't hold up other messages on the socket for long.
+const assetChunkSize = 256 << 10;
+
+class AssetEntry {
+  final String hash;
+  final int size;
+
+  const AssetEntry(this.hash, this.size);
+
+  AssetEntry.fromMessage(List message)
+      : hash = message[0] as String,
+        size = message[1] as int;
+
+  List<Object> toMessage() => [hash, size];
+
+  @override
+  bool operator ==(Object other) =>
+      other is AssetEntry && other.hash == hash && other.size == size;
+
+  @override
+  int get hashCode => Object.hash(hash, size);
+}
+
+/// The asset files of a version, by path relative to the assets root with `/`
+/// separators.
+class AssetManifest {
+  final Map<String, AssetEntry> files;
+
+  const AssetManifest(this.files);
+
+  AssetManifest.fromMessage(Map message)
+      : files = {
+          for (final MapEntry(:key, :value) in message.entries)
+            key as String: AssetEntry.fromMessage(value as List),
+        };
+
+  Map<String, List<Object>> toMessage() => {
+        for (final MapEntry(:key, :value) in files.entries)
+          key: value.toMessage(),
+      };
+}
+
+/// What a client already has: installed files by path with their hashes, and
+/// the number of bytes downloaded so far of incomplete files, by hash.
+class AssetInventory {
+  final Map<String, String> files;
+  final Map<String, int> partial;
+
+  const AssetInventory({this.files = const {}, this.partial = const {}});
+
+  AssetInventory.fromMessage(Map message)
+      : files = (message['files'] as Map).cast(),
+        partial = (message['partial'] as Map).cast();
+
+  Map<String, Object> toMessage() => {'files': files, 'partial': partial};
+
+  /// Returns the hashes of [manifest] files that the client has no copy of.
+  Set<String> missing(AssetManifest manifest) {
+    final have = files.values.toSet();
+    return {
+      for (final entry in manifest.files.values)
+        if (entry.size > 0 && !have.contains(entry.hash)) entry.hash,
+    };
+  }
+}
+
+/// Splits [data] into `assetChunk` payloads starting at [offset].
+Iterable<(int, Uint8List)> assetChunks(Uint8List data, [int offset = 0]) sync* {
+  for (; offset < data.length; offset += assetChunkSize) {
+    final end = min(offset + assetChunkSize, data.length);
+    yield (offset, Uint8List.sublistView(data, offset, end));
+  }
+}
@@ -1,6 +1,8 @@
 import 'dart:async';
+import 'dart:collection';
 import 'dart:convert';
 import 'dart:io';
+import 'dart:math';
 import 'dart:typed_data';
 
 import 'package:flutter/services.dart';
@@ -26,10 +28,15 @@ class _Encoder extends Converter<Message, List<int>> {
 class _Decoder extends Converter<Uint8List, Message> {
   const _Decoder();
 
+  /// Typed lists other than [Uint8List] are read as views, which must be
+  /// aligned relative to the underlying buffer, while the codec only aligns
+  /// them relative to the message. Input that doesn't start on an 8-byte
+  /// boundary is copied first.
   @override
   Message convert(Uint8List input) =>
-      const StandardMessageCodec().decodeMessage(ByteData.sublistView(input))
-          as Message;
+      const StandardMessageCodec().decodeMessage(ByteData.sublistView(
+        input.offsetInBytes % 8 == 0 ? input : Uint8List.fromList(input),
+      )) as Message;
 
   @override
   Sink<Uint8List> startChunkedConversion(Sink<Message> sink) =>
@@ -58,22 +65,60 @@ class _EnvelopeEncoder implements ChunkedConversionSink<Message> {
   void close() => _out.close();
 }
 
+/// Splits a byte stream into envelopes and decodes them.
+///
+/// Incoming chunks are kept as a list of segments with a read cursor into the
+/// first, so each byte is copied at most once: envelopes that fall within one
+/// chunk are decoded from a view of it, and only envelopes that span chunks are
+/// gathered into a new buffer. Views that aren't 8-byte aligned are copied by
+/// [_Decoder.convert] instead.
 class _ChunkedDecoder implements ChunkedConversionSink<Uint8List> {
   final Sink<Message> _out;
   int _nextSize = 0;
-  final _buffer = BytesBuilder(copy: false);
+
+  /// Unconsumed chunks, oldest first. Only the first may be partially consumed,
+  /// up to [_offset].
+  final _segments = ListQueue<Uint8List>();
+  int _offset = 0;
+
+  /// The number of unconsumed bytes across [_segments].
+  int _length = 0;
 
   _ChunkedDecoder(this._out);
 
   Uint8List _takeBytes(int size) {
-    final bytes = _buffer.takeBytes();
-    _buffer.add(bytes.sublist(size));
-    return bytes.sublist(0, size);
+    assert(size <= _length);
+    _length -= size;
+
+    final first = _segments.first;
+    if (first.length - _offset >= size) {
+      final bytes = Uint8List.sublistView(first, _offset, _offset + size);
+      _advance(first, size);
+      return bytes;
+    }
+
+    final bytes = Uint8List(size);
+    for (var filled = 0; filled < size;) {
+      final segment = _segments.first;
+      final count = min(segment.length - _offset, size - filled);
+      bytes.setRange(filled, filled + count, segment, _offset);
+      filled += count;
+      _advance(segment, count);
+    }
+    return bytes;
+  }
+
+  void _advance(Uint8List segment, int count) {
+    _offset += count;
+    if (_offset == segment.length) {
+      _segments.removeFirst();
+      _offset = 0;
+    }
   }
 
   bool _emitEnvelope() {
     if (_nextSize == 0) {
-      if (_buffer.length >= 4) {
+      if (_length >= 4) {
         _nextSize = ByteData.sublistView(_takeBytes(4)).getInt32(0);
       } else {
         return false;
@@ -81,7 +126,7 @@ class _ChunkedDecoder implements ChunkedConversionSink<Uint8List> {
     }
 
     assert(_nextSize > 0);
-    if (_buffer.length >= _nextSize) {
+    if (_length >= _nextSize) {
       _out.add(decoder.convert(_takeBytes(_nextSize)));
       _nextSize = 0;
       return true;
@@ -92,13 +137,17 @@ class _ChunkedDecoder implements ChunkedConversionSink<Uint8List> {
 
   @override
   void add(Uint8List chunk) {
-    _buffer.add(chunk);
+    if (chunk.isEmpty) {
+      return;
+    }
+    _segments.add(chunk);
+    _length += chunk.length;
     while (_emitEnvelope()) {}
   }
 
   @override
   void close() {
-    if (_buffer.isNotEmpty) {
+    if (_length > 0 || _nextSize != 0) {
       scheduleMicrotask(_out.close);
       throw const FormatException('Buffer has outstanding data.');
     }
@@ -2,3 +2,6 @@ import 'package:crypto/crypto.dart';
 
 String computeAssetsVersion(List<int> assetsArchiveData) =>
     md5.convert(assetsArchiveData).toString();
+
+/// Content hash of a single asset file, which identifies it in delta syncs.
+String computeAssetHash(List<int> data) => sha1.convert(data).toString();
@@ -1,5 +1,8 @@
 import 'dart:async';
+import 'dart:convert';
 import 'dart:io';
+import 'dart:math';
+import 'dart:typed_data';
 
 import 'package:fake_async/fake_async.dart';
 import 'package:ride_shared/protocol.dart';
@@ -18,6 +21,81 @@ void main() {
     expect(decoder.convert(encoder.convert(message)), message);
   });
 
+  group('chunked decoding', () {
+    const messages = [
+      ['thing one'],
+      ['thing two', 'abcd' * 100],
+      ['thing three'],
+    ];
+
+    late Uint8List bytes;
+
+    setUp(() {
+      final builder = BytesBuilder();
+      final sink = encoder.startChunkedConversion(
+          ByteConversionSink.withCallback(builder.add));
+      messages.forEach(sink.add);
+      sink.close();
+      bytes = builder.takeBytes();
+    });
+
+    List<Message> decodeInChunks(int chunkSize) {
+      final decoded = <Message>[];
+      final sink = decoder.startChunkedConversion(
+          ChunkedConversionSink.withCallback(decoded.addAll));
+      for (var i = 0; i < bytes.length; i += chunkSize) {
+        sink.add(Uint8List.sublistView(
+            bytes, i, min(i + chunkSize, bytes.length)));
+      }
+      sink.close();
+      return decoded;
+    }
+
+    test('single chunk', () => expect(decodeInChunks(bytes.length), messages));
+    test('byte by byte', () => expect(decodeInChunks(1), messages));
+    test('headers split across chunks', () {
+      for (final chunkSize in [3, 5, 7, 64]) {
+        expect(decodeInChunks(chunkSize), messages, reason: '$chunkSize');
+      }
+    });
+
+    test('typed lists at unaligned offsets', () {
+      final messages = [
+        ['ints', Int32List.fromList([1, -2, 3]), Int64List.fromList([-4])],
+        [
+          'floats',
+          Float32List.fromList([0.5]),
+          Float64List.fromList([-2.25]),
+        ],
+      ];
+      final builder = BytesBuilder();
+      final sink = encoder.startChunkedConversion(
+          ByteConversionSink.withCallback(builder.add));
+      messages.forEach(sink.add);
+      sink.close();
+      final bytes = builder.takeBytes();
+
+      // Each envelope starts 4 bytes past its header, so whole-chunk views of
+      // the body are misaligned. Offsetting the chunks covers the rest.
+      for (final start in [0, 1, 2, 3, 4, 5, 6, 7]) {
+        final padded = Uint8List(start + bytes.length)..setAll(start, bytes);
+        final decoded = <Message>[];
+        decoder.startChunkedConversion(
+            ChunkedConversionSink.withCallback(decoded.addAll))
+          ..add(Uint8List.sublistView(padded, start))
+          ..close();
+        expect(decoded, messages, reason: '$start');
+      }
+    });
+
+    test('truncated stream', () {
+      final sink = decoder.startChunkedConversion(
+          ChunkedConversionSink.withCallback((_) {}));
+      sink.add(Uint8List.sublistView(bytes, 0, 6));
+      expect(sink.close, throwsFormatException);
+    });
+  });
+
   group('socket integration', () {
     late ServerSocket serverSocket;
     late Socket client, server;